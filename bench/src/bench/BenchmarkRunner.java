@@ -0,0 +1,132 @@
+package bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Запуск: java bench.BenchmarkRunner [regex] [--save-baseline]
+// Результат пишется в bench/results/latest.json и сравнивается с bench/baseline/baseline.json
+public class BenchmarkRunner {
+    private static final Path RESULTS = Paths.get("bench/results/latest.json");
+    private static final Path BASELINE = Paths.get("bench/baseline/baseline.json");
+    private static final double REGRESSION_THRESHOLD = 0.10; // 10%
+    // Для базовой линии и сравнения одинаково, поверх аннотаций классов: при одном форке и пяти
+    // итерациях погрешность доходила до величины самого результата
+    private static final int FORKS = 3;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = "bench\\..*|main\\.dao\\..*Benchmark.*";
+        boolean saveBaseline = false;
+
+        for (String arg : args) {
+            if ("--save-baseline".equals(arg)) {
+                saveBaseline = true;
+            } else {
+                include = arg;
+            }
+        }
+
+        Files.createDirectories(RESULTS.getParent());
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .forks(FORKS)
+                .warmupIterations(WARMUP_ITERATIONS)
+                .measurementIterations(MEASUREMENT_ITERATIONS)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS.toString())
+                .build();
+        new Runner(options).run();
+
+        if (saveBaseline) {
+            Files.createDirectories(BASELINE.getParent());
+            Files.copy(RESULTS, BASELINE, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("✅ Базовая линия обновлена: " + BASELINE);
+            return;
+        }
+
+        if (Files.exists(BASELINE) && compare(RESULTS.toFile(), BASELINE.toFile()) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Возвращает количество бенчмарков, ставших медленнее базовой линии больше чем на порог
+    // (с учетом погрешности обоих замеров), и бенчмарков без базовой линии - их гейт не проверил бы
+    static int compare(File current, File baseline) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> base = index(mapper.readTree(baseline));
+        Map<String, JsonNode> now = index(mapper.readTree(current));
+
+        int regressions = 0;
+        System.out.println("\n📊 Сравнение с базовой линией:");
+        System.out.println("══════════════════════════════════════");
+
+        for (Map.Entry<String, JsonNode> entry : now.entrySet()) {
+            JsonNode before = base.get(entry.getKey());
+            double score = entry.getValue().get("primaryMetric").get("score").asDouble();
+            String unit = entry.getValue().get("primaryMetric").get("scoreUnit").asText();
+
+            if (before == null) {
+                System.out.printf("%-70s %12.3f %s ❌ нет в базовой линии (--save-baseline)%n", entry.getKey(), score, unit);
+                regressions++;
+                continue;
+            }
+
+            double error = errorOf(entry.getValue());
+            double baseScore = before.get("primaryMetric").get("score").asDouble();
+            double baseError = errorOf(before);
+            double delta = (score - baseScore) / baseScore;
+            // Все бенчмарки в режиме AverageTime: рост значения - это замедление.
+            // Пересекающиеся доверительные интервалы - это шум, а не регрессия
+            boolean slower = delta > REGRESSION_THRESHOLD;
+            boolean regressed = slower && score - error > baseScore + baseError;
+            if (regressed) {
+                regressions++;
+            }
+
+            System.out.printf("%-70s %12.3f ± %.3f %s  %+6.1f%% %s%n",
+                    entry.getKey(), score, error, unit, delta * 100,
+                    regressed ? "❌" : slower ? "(в пределах погрешности)" : "");
+        }
+
+        System.out.println("══════════════════════════════════════");
+        return regressions;
+    }
+
+    // Половина 99.9% доверительного интервала; NaN (одна итерация) - без погрешности
+    private static double errorOf(JsonNode result) {
+        double error = result.get("primaryMetric").path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byName = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            byName.put(key.toString(), result);
+        }
+        return byName;
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import main.utils.JsonResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int movieCount;
+
+    private List<Map<String, Object>> movies;
+
+    @Setup
+    public void setup() {
+        movies = new ArrayList<>(movieCount);
+        for (int i = 1; i <= movieCount; i++) {
+            // Та же форма, что отдает MovieHandler.mapMovieToResponse
+            movies.add(Map.of(
+                    "id", i,
+                    "title", "Фильм номер " + i,
+                    "director", "Режиссер " + (i % 50),
+                    "year", 1950 + (i % 75),
+                    "description", "Описание фильма " + i + ", достаточно длинное, чтобы походить на настоящее. "
+                            .repeat(4),
+                    "duration", 90 + (i % 90),
+                    "posterUrl", "https://cdn.example.com/posters/" + i + ".jpg",
+                    "averageRating", (i % 100) / 10.0
+            ));
+        }
+    }
+
+    @Benchmark
+    public String successMovieList() throws JsonProcessingException {
+        return JsonResponse.success(movies);
+    }
+}
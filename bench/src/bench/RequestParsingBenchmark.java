@@ -0,0 +1,58 @@
+package bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import main.utils.CookieManager;
+import main.utils.QueryString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestParsingBenchmark {
+
+    private HttpExchange browserExchange;
+    private String catalogQuery;
+
+    @Setup
+    public void setup() {
+        catalogQuery = "sortBy=rating&order=desc&limit=50&page=3&filter=active";
+
+        // Типичный набор cookie браузера: аналитика + наша сессия в конце
+        browserExchange = new StubExchange("GET", "/api/movies?" + catalogQuery)
+                .withHeader("Cookie", "_ga=GA1.1.1234567890.1700000000; _ym_uid=1700000000123456789; "
+                        + "theme=dark; lang=ru; sessionId=6f1c2a3e-5b7d-4e8f-9a0b-1c2d3e4f5a6b");
+    }
+
+    // Разбор всей строки в карту - для сравнения с чтением по ключу
+    @Benchmark
+    public Map<String, String> parseQuery() {
+        return QueryString.parse(catalogQuery);
+    }
+
+    // Так теперь читают параметры обработчики: по ключу, без карты
+    @Benchmark
+    public String queryParameter() {
+        String sortBy = QueryString.get(catalogQuery, "sortBy");
+        String limit = QueryString.get(catalogQuery, "limit");
+        return limit != null ? limit : sortBy;
+    }
+
+    @Benchmark
+    public String getSessionCookie() {
+        return CookieManager.getCookie(browserExchange, "sessionId");
+    }
+}
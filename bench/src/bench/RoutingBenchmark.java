@@ -0,0 +1,52 @@
+package bench;
+
+import main.handlers.MovieHandler;
+import main.handlers.ReviewHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+    private final String[] moviePaths = {
+            "/api/movies", "/api/movies/42", "/api/movies/search", "/api/movies/top"
+    };
+
+    private final String[] reviewPaths = {
+            "/api/reviews/movie/42", "/api/reviews/17", "/api/reviews/my", "/api/reviews/pending"
+    };
+
+    @Benchmark
+    public void movieRoutes(Blackhole bh) {
+        for (String path : moviePaths) {
+            bh.consume(MovieHandler.resolveRoute("GET", path));
+        }
+    }
+
+    @Benchmark
+    public void reviewRoutes(Blackhole bh) {
+        for (String path : reviewPaths) {
+            bh.consume(ReviewHandler.resolveRoute("GET", path));
+        }
+    }
+
+    @Benchmark
+    public Object reviewApproveRoute() {
+        // Худший случай: PATCH проходит через две регулярки
+        return ReviewHandler.resolveRoute("PATCH", "/api/reviews/17/reject");
+    }
+}
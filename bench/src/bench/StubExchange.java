@@ -0,0 +1,65 @@
+package bench;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+// Минимальный HttpExchange без сети - только заголовки, URI и атрибуты
+public class StubExchange extends HttpExchange {
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final String method;
+    private final URI uri;
+    private InputStream requestBody = new ByteArrayInputStream(new byte[0]);
+    private OutputStream responseBody = new ByteArrayOutputStream();
+    private int responseCode = -1;
+
+    public StubExchange(String method, String uri) {
+        this.method = method;
+        this.uri = URI.create(uri);
+    }
+
+    public StubExchange withHeader(String name, String value) {
+        requestHeaders.add(name, value);
+        return this;
+    }
+
+    @Override public Headers getRequestHeaders() { return requestHeaders; }
+    @Override public Headers getResponseHeaders() { return responseHeaders; }
+    @Override public URI getRequestURI() { return uri; }
+    @Override public String getRequestMethod() { return method; }
+    @Override public HttpContext getHttpContext() { return null; }
+    @Override public void close() { }
+    @Override public InputStream getRequestBody() { return requestBody; }
+    @Override public OutputStream getResponseBody() { return responseBody; }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        this.responseCode = rCode;
+    }
+
+    @Override public InetSocketAddress getRemoteAddress() { return new InetSocketAddress("127.0.0.1", 50000); }
+    @Override public int getResponseCode() { return responseCode; }
+    @Override public InetSocketAddress getLocalAddress() { return new InetSocketAddress("127.0.0.1", 8080); }
+    @Override public String getProtocol() { return "HTTP/1.1"; }
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public void setAttribute(String name, Object value) { attributes.put(name, value); }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) requestBody = i;
+        if (o != null) responseBody = o;
+    }
+
+    @Override public HttpPrincipal getPrincipal() { return null; }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+
+// ResultSet на одну строку поверх Map; реализован через Proxy, чтобы не перечислять весь интерфейс
+public class StubResultSet {
+
+    public static ResultSet of(Map<String, Object> row) {
+        boolean[] lastWasNull = new boolean[1];
+
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getString": {
+                            Object value = row.get((String) args[0]);
+                            lastWasNull[0] = value == null;
+                            return value;
+                        }
+                        case "getInt": {
+                            Object value = row.get((String) args[0]);
+                            lastWasNull[0] = value == null;
+                            return value == null ? 0 : ((Number) value).intValue();
+                        }
+                        case "getDouble": {
+                            Object value = row.get((String) args[0]);
+                            lastWasNull[0] = value == null;
+                            return value == null ? 0.0 : ((Number) value).doubleValue();
+                        }
+                        case "wasNull":
+                            return lastWasNull[0];
+                        case "next":
+                            return true;
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
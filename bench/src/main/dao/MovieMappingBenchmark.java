@@ -0,0 +1,53 @@
+package main.dao;
+
+import bench.StubResultSet;
+import main.models.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Лежит в пакете main.dao, чтобы достать package-private MovieDAO.mapResultSetToMovie
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieMappingBenchmark {
+
+    private MovieDAO movieDAO;
+    private ResultSet row;
+
+    @Setup
+    public void setup() {
+        movieDAO = new MovieDAO();
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 42);
+        values.put("title", "Интерстеллар");
+        values.put("director", "Кристофер Нолан");
+        values.put("year", 2014);
+        values.put("description", "Фантастический эпос о путешествии в космос");
+        values.put("duration", 169);
+        values.put("poster_url", "https://cdn.example.com/posters/42.jpg");
+        values.put("avg_rating", 8.64);
+        row = StubResultSet.of(values);
+    }
+
+    @Benchmark
+    public Movie mapResultSetToMovie() throws SQLException {
+        return movieDAO.mapResultSetToMovie(row);
+    }
+}
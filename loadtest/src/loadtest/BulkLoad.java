@@ -0,0 +1,29 @@
+package loadtest;
+
+import java.util.Map;
+
+// Заливка синтетического набора в БД из config.properties (схема должна уже существовать).
+// Пример: java loadtest.BulkLoad --users=500000 --movies=200000 --reviews=10000000 --mode=load_data --passwords=none
+public class BulkLoad {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parseArgs(args);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int users = Integer.parseInt(options.getOrDefault("users", "100000"));
+        int movies = Integer.parseInt(options.getOrDefault("movies", "50000"));
+        long reviews = Long.parseLong(options.getOrDefault("reviews", "1000000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1000"));
+        BulkLoader.Mode mode = BulkLoader.Mode.valueOf(options.getOrDefault("mode", "insert").toUpperCase());
+        DataGenerator.Passwords passwords =
+                DataGenerator.Passwords.valueOf(options.getOrDefault("passwords", "shared").toUpperCase());
+
+        System.out.printf("📦 Генерация: seed=%d, %,d пользователей, %,d фильмов, %,d отзывов (%s, пароли: %s)%n",
+                seed, users, movies, reviews, mode, passwords);
+
+        long start = System.nanoTime();
+        DataGenerator generator = new DataGenerator(seed, users, movies, reviews, passwords);
+        new BulkLoader(generator, mode, batch).load();
+
+        System.out.printf("✅ Загружено за %.1f с%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,318 @@
+package loadtest;
+
+import main.config.ServerConfig;
+import main.utils.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// Массовая загрузка сгенерированных данных: многострочные INSERT пачками или LOAD DATA из потокового CSV
+public class BulkLoader {
+
+    public enum Mode { INSERT, LOAD_DATA }
+
+    private static final String[] USER_COLUMNS =
+            {"id", "username", "email", "password_hash", "role", "created_at", "is_active"};
+    private static final String[] MOVIE_COLUMNS =
+            {"id", "title", "director", "year", "description", "duration", "poster_url", "created_at"};
+    private static final String[] MOVIE_GENRE_COLUMNS = {"movie_id", "genre_id"};
+    private static final String[] REVIEW_COLUMNS =
+            {"movie_id", "user_id", "rating", "comment", "created_at", "is_approved"};
+
+    private final DataGenerator generator;
+    private final Mode mode;
+    private final int batchRows;
+
+    public BulkLoader(DataGenerator generator, Mode mode, int batchRows) {
+        this.generator = generator;
+        this.mode = mode;
+        this.batchRows = batchRows;
+    }
+
+    public void load() throws SQLException {
+        boolean mysql = ServerConfig.getDatabaseUrl().startsWith("jdbc:mysql:");
+        if (mode == Mode.LOAD_DATA && !mysql) {
+            throw new IllegalStateException("LOAD DATA is only supported on MySQL");
+        }
+
+        try (Connection conn = openConnection(mysql)) {
+            conn.setAutoCommit(false);
+            if (mysql) {
+                // Проверки ключей на время загрузки не нужны: данные консистентны по построению
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET SESSION unique_checks = 0");
+                    stmt.execute("SET SESSION foreign_key_checks = 0");
+                }
+            }
+
+            generator.startAt(nextId(conn, "users"), nextId(conn, "movies"));
+            int[] genreIds = genreIds(conn);
+
+            timed("users", generator.getUsers() + 1L, conn, "users", USER_COLUMNS, generator::users);
+            timed("movies", generator.getMovies(), conn, "movies", MOVIE_COLUMNS, generator::movies);
+            timed("movie_genres", generator.getMovies(), conn, "movie_genres", MOVIE_GENRE_COLUMNS,
+                    sink -> generator.movieGenres(genreIds, sink));
+            timed("reviews", generator.getReviews(), conn, "reviews", REVIEW_COLUMNS, generator::reviews);
+
+            try (Statement stmt = conn.createStatement()) {
+                if (mysql) {
+                    stmt.execute("SET SESSION unique_checks = 1");
+                    stmt.execute("SET SESSION foreign_key_checks = 1");
+                } else {
+                    // H2 не сдвигает счетчик AUTO_INCREMENT при вставке явных id
+                    stmt.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + nextId(conn, "users"));
+                    stmt.execute("ALTER TABLE movies ALTER COLUMN id RESTART WITH " + nextId(conn, "movies"));
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    private interface Source {
+        void generate(DataGenerator.RowSink sink) throws SQLException;
+    }
+
+    private void timed(String label, long expectedRows, Connection conn, String table, String[] columns,
+                       Source source) throws SQLException {
+        long start = System.nanoTime();
+        TableWriter writer = mode == Mode.LOAD_DATA
+                ? new LoadDataWriter(conn, table, columns)
+                : new MultiRowInsertWriter(conn, table, columns, batchRows);
+        source.generate(writer::row);
+        long rows = writer.finish();
+        conn.commit();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("   %-13s %,12d строк за %7.1f с (%,.0f строк/с)%n",
+                label, rows, seconds, rows / Math.max(seconds, 1e-9));
+        if (rows < expectedRows / 2) {
+            System.out.println("   ⚠️ Ожидалось около " + expectedRows + " строк");
+        }
+    }
+
+    private Connection openConnection(boolean mysql) throws SQLException {
+        if (mode != Mode.LOAD_DATA) {
+            return DatabaseConnection.getConnection();
+        }
+        // LOAD DATA LOCAL требует явного разрешения на стороне драйвера
+        String url = ServerConfig.getDatabaseUrl();
+        url += (url.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true";
+        return DriverManager.getConnection(url, ServerConfig.getDatabaseUser(), ServerConfig.getDatabasePassword());
+    }
+
+    private int nextId(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private int[] genreIds(Connection conn) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM genres ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private interface TableWriter {
+        void row(Object... values) throws SQLException;
+
+        long finish() throws SQLException;
+    }
+
+    // INSERT INTO t (...) VALUES (...), (...), ... по batchRows строк; полная пачка переиспользует один statement
+    private static class MultiRowInsertWriter implements TableWriter {
+        private final Connection conn;
+        private final String table;
+        private final String[] columns;
+        private final int batchRows;
+        private final List<Object[]> buffer;
+        private PreparedStatement fullBatch;
+        private long written;
+
+        MultiRowInsertWriter(Connection conn, String table, String[] columns, int batchRows) {
+            this.conn = conn;
+            this.table = table;
+            this.columns = columns;
+            this.batchRows = batchRows;
+            this.buffer = new ArrayList<>(batchRows);
+        }
+
+        @Override
+        public void row(Object... values) throws SQLException {
+            buffer.add(values);
+            if (buffer.size() == batchRows) {
+                if (fullBatch == null) {
+                    fullBatch = conn.prepareStatement(sql(batchRows));
+                }
+                flush(fullBatch);
+                // Коммитим каждые ~50 пачек, чтобы не раздувать undo-лог
+                if (written % (batchRows * 50L) == 0) {
+                    conn.commit();
+                }
+            }
+        }
+
+        @Override
+        public long finish() throws SQLException {
+            try {
+                if (!buffer.isEmpty()) {
+                    try (PreparedStatement tail = conn.prepareStatement(sql(buffer.size()))) {
+                        flush(tail);
+                    }
+                }
+            } finally {
+                if (fullBatch != null) {
+                    fullBatch.close();
+                }
+            }
+            return written;
+        }
+
+        private void flush(PreparedStatement stmt) throws SQLException {
+            int index = 1;
+            for (Object[] values : buffer) {
+                for (Object value : values) {
+                    stmt.setObject(index++, value);
+                }
+            }
+            stmt.executeUpdate();
+            written += buffer.size();
+            buffer.clear();
+        }
+
+        private String sql(int rows) {
+            StringBuilder tuple = new StringBuilder("(");
+            for (int i = 0; i < columns.length; i++) {
+                tuple.append(i == 0 ? "?" : ", ?");
+            }
+            tuple.append(')');
+
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(tuple);
+            }
+            return sql.toString();
+        }
+    }
+
+    // LOAD DATA LOCAL INFILE читает CSV из канала, который заполняется по мере генерации строк
+    private static class LoadDataWriter implements TableWriter {
+        private final Writer out;
+        private final Thread loader;
+        private final SQLException[] failure = new SQLException[1];
+        private long written;
+
+        LoadDataWriter(Connection conn, String table, String[] columns) throws SQLException {
+            PipedInputStream in = new PipedInputStream(1 << 20);
+            try {
+                out = new BufferedWriter(new OutputStreamWriter(new PipedOutputStream(in), StandardCharsets.UTF_8),
+                        1 << 16);
+            } catch (IOException e) {
+                throw new SQLException("Cannot open CSV pipe", e);
+            }
+
+            String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + table +
+                    " CHARACTER SET utf8mb4" +
+                    " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY '\\\\'" +
+                    " LINES TERMINATED BY '\\n'" +
+                    " (" + String.join(", ", columns) + ")";
+
+            loader = new Thread(() -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.unwrap(com.mysql.cj.jdbc.JdbcStatement.class).setLocalInfileInputStream(in);
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    failure[0] = e;
+                } finally {
+                    try {
+                        in.close();
+                    } catch (IOException ignored) {
+                        // поток уже закрыт
+                    }
+                }
+            }, "load-data-" + table);
+            loader.start();
+        }
+
+        @Override
+        public void row(Object... values) throws SQLException {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) out.write(',');
+                    writeField(values[i]);
+                }
+                out.write('\n');
+                written++;
+            } catch (IOException e) {
+                throw failure[0] != null ? failure[0] : new SQLException("CSV stream closed", e);
+            }
+        }
+
+        @Override
+        public long finish() throws SQLException {
+            try {
+                out.close();
+                loader.join();
+            } catch (IOException e) {
+                throw new SQLException("CSV stream closed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while loading", e);
+            }
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return written;
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                out.write("\\N");
+            } else if (value instanceof Boolean) {
+                out.write((Boolean) value ? '1' : '0');
+            } else if (value instanceof Timestamp) {
+                String text = value.toString();
+                // Отбрасываем доли секунды: yyyy-MM-dd HH:mm:ss
+                out.write(text, 0, Math.min(19, text.length()));
+            } else if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                String text = value.toString();
+                out.write('"');
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        out.write('\\');
+                        out.write(c);
+                    } else if (c == '\n') {
+                        out.write("\\n");
+                    } else {
+                        out.write(c);
+                    }
+                }
+                out.write('"');
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package loadtest;
+
+import main.utils.PasswordHasher;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+// Детерминированный генератор синтетических данных: один и тот же seed дает одни и те же строки
+// независимо от способа загрузки. Популярность фильмов и активность пользователей - по Zipf.
+public class DataGenerator {
+    public static final String USER_PASSWORD = "Password123";
+    public static final String ADMIN_EMAIL = "loadadmin@load.test";
+    public static final String ADMIN_PASSWORD = "Admin12345";
+
+    public enum Passwords { SHARED, BCRYPT, NONE }
+
+    public interface RowSink {
+        void row(Object... values) throws SQLException;
+    }
+
+    static final String[] TITLE_WORDS = {
+            "Тень", "Город", "Последний", "Звезда", "Ночь", "Война", "Море", "Путь", "Время", "Сон",
+            "Shadow", "City", "Last", "Star", "Night", "War", "Ocean", "Road", "Time", "Dream",
+            "Охота", "Зеркало", "Огонь", "Summer", "Winter", "Ghost", "King", "Остров", "Космос", "Lost"
+    };
+
+    private static final String[] DIRECTORS = {
+            "Кристофер Нолан", "Квентин Тарантино", "Андрей Тарковский", "Stanley Kubrick",
+            "Alfred Hitchcock", "Акира Куросава", "Дэвид Финчер", "Sofia Coppola", "Денис Вильнёв", "Greta Gerwig"
+    };
+
+    // Хэш-заглушка для режима NONE: BCrypt.checkpw на нем всегда false, вход невозможен
+    private static final String NO_PASSWORD_HASH = "!generated";
+    private static final long HISTORY_MILLIS = 3L * 365 * 24 * 60 * 60 * 1000;
+    private static final double MOVIE_EXPONENT = 1.0;
+    private static final double USER_EXPONENT = 0.8;
+
+    private final long seed;
+    private final int users;
+    private final int movies;
+    private final long reviews;
+    private final Passwords passwords;
+    private final long now;
+    private int firstUserId = 1;
+    private int firstMovieId = 1;
+
+    public DataGenerator(long seed, int users, int movies, long reviews, Passwords passwords) {
+        this.seed = seed;
+        this.users = users;
+        this.movies = movies;
+        this.reviews = Math.min(reviews, (long) users * movies);
+        this.passwords = passwords;
+        // Время "сейчас" округляем до суток, чтобы повторный прогон давал те же даты
+        this.now = System.currentTimeMillis() / 86_400_000L * 86_400_000L;
+    }
+
+    // Идентификаторы задаются явно, чтобы отзывы можно было генерировать без чтения из БД
+    public void startAt(int firstUserId, int firstMovieId) {
+        this.firstUserId = firstUserId;
+        this.firstMovieId = firstMovieId;
+    }
+
+    // Колонки: id, username, email, password_hash, role, created_at, is_active
+    public void users(RowSink sink) throws SQLException {
+        Random random = random(1);
+        String sharedHash = passwords == Passwords.SHARED ? PasswordHasher.hashPassword(USER_PASSWORD) : null;
+
+        sink.row(firstUserId, "loadadmin", ADMIN_EMAIL, PasswordHasher.hashPassword(ADMIN_PASSWORD),
+                "ADMIN", new Timestamp(now - HISTORY_MILLIS), true);
+
+        for (int i = 1; i <= users; i++) {
+            String hash;
+            switch (passwords) {
+                case BCRYPT:
+                    hash = PasswordHasher.hashPassword(USER_PASSWORD);
+                    break;
+                case NONE:
+                    hash = NO_PASSWORD_HASH;
+                    break;
+                default:
+                    hash = sharedHash;
+            }
+            sink.row(userId(i), "load_user_" + i, userEmail(i), hash, "USER",
+                    pastTimestamp(random), random.nextInt(50) != 0);
+        }
+    }
+
+    // Колонки: id, title, director, year, description, duration, poster_url, created_at
+    public void movies(RowSink sink) throws SQLException {
+        Random random = random(2);
+        for (int i = 1; i <= movies; i++) {
+            sink.row(movieId(i), title(random), DIRECTORS[random.nextInt(DIRECTORS.length)],
+                    1950 + random.nextInt(75), description(random), 80 + random.nextInt(100),
+                    "https://cdn.load.test/posters/" + i + ".jpg", pastTimestamp(random));
+        }
+    }
+
+    // Колонки: movie_id, genre_id
+    public void movieGenres(int[] genreIds, RowSink sink) throws SQLException {
+        if (genreIds.length == 0) {
+            return;
+        }
+        Random random = random(3);
+        for (int i = 1; i <= movies; i++) {
+            int count = 1 + random.nextInt(Math.min(3, genreIds.length));
+            int first = random.nextInt(genreIds.length);
+            for (int g = 0; g < count; g++) {
+                sink.row(movieId(i), genreIds[(first + g) % genreIds.length]);
+            }
+        }
+    }
+
+    // Колонки: movie_id, user_id, rating, comment, created_at, is_approved.
+    // Число отзывов пользователя пропорционально его весу по Zipf; фильмы внутри - по популярности.
+    // Уникальность (movie_id, user_id) проверяется в пределах одного пользователя, без глобального множества.
+    public void reviews(RowSink sink) throws SQLException {
+        Random random = random(4);
+        Zipf moviePopularity = new Zipf(movies, MOVIE_EXPONENT);
+
+        double totalWeight = 0;
+        for (int i = 1; i <= users; i++) {
+            totalWeight += 1.0 / Math.pow(i, USER_EXPONENT);
+        }
+
+        double carry = 0;
+        Set<Integer> reviewed = new HashSet<>();
+        for (int i = 1; i <= users; i++) {
+            double target = reviews * (1.0 / Math.pow(i, USER_EXPONENT)) / totalWeight + carry;
+            int count = (int) Math.min(movies, Math.floor(target));
+            carry = target - count;
+
+            reviewed.clear();
+            while (reviewed.size() < count) {
+                int movie = moviePopularity.next(random);
+                if (reviewed.contains(movie)) {
+                    movie = 1 + random.nextInt(movies);
+                }
+                if (!reviewed.add(movie)) {
+                    continue;
+                }
+
+                sink.row(movieId(movie), userId(i), rating(movie, random),
+                        "Отзыв: " + "очень ".repeat(random.nextInt(20)) + "впечатляет",
+                        pastTimestamp(random), random.nextInt(20) != 0);
+            }
+        }
+    }
+
+    private int rating(int movie, Random random) {
+        // У каждого фильма свое "качество", оценки разбросаны вокруг него
+        double quality = 3 + (Long.hashCode(seed * 31 + movie) & 0x7fffffff) % 600 / 100.0;
+        return (int) Math.max(1, Math.min(10, Math.round(quality + random.nextGaussian() * 1.5)));
+    }
+
+    private Timestamp pastTimestamp(Random random) {
+        return new Timestamp(now - (long) (random.nextDouble() * HISTORY_MILLIS));
+    }
+
+    private String title(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) title.append(' ');
+            title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    private String description(Random random) {
+        // Длинный хвост: у части фильмов описания в несколько килобайт
+        int sentences = random.nextInt(10) == 0 ? 40 + random.nextInt(60) : 2 + random.nextInt(6);
+        return "Сюжет разворачивается неспешно, но держит в напряжении до финала. ".repeat(sentences);
+    }
+
+    // Отдельный поток случайных чисел на каждую таблицу
+    private Random random(int stream) {
+        return new Random(seed * 1_000_003L + stream);
+    }
+
+    public static String userEmail(int index) {
+        return "load_user_" + index + "@load.test";
+    }
+
+    public int userId(int index) { return firstUserId + index; }
+    public int movieId(int index) { return firstMovieId + index - 1; }
+
+    public int getUsers() { return users; }
+    public int getMovies() { return movies; }
+    public long getReviews() { return reviews; }
+    public int getFirstUserId() { return firstUserId; }
+    public int getFirstMovieId() { return firstMovieId; }
+}
@@ -0,0 +1,166 @@
+package loadtest;
+
+import main.config.ServerConfig;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Встроенная H2 в режиме совместимости с MySQL вместо localhost:3306
+public class EmbeddedDatabase {
+
+    private static ScheduledExecutorService replication;
+
+    public static String url(String name) {
+        return "jdbc:h2:mem:" + name
+                + ";MODE=MySQL"
+                + ";DATABASE_TO_LOWER=TRUE"
+                + ";NON_KEYWORDS=YEAR,MONTH,VALUE"
+                + ";DB_CLOSE_DELAY=-1";
+    }
+
+    // Должно вызываться до первого обращения к DatabaseConnection
+    public static void install(String name) {
+        ServerConfig.setProperty("db.url", url(name));
+        ServerConfig.setProperty("db.user", "sa");
+        ServerConfig.setProperty("db.password", "");
+    }
+
+    // Реплики для проверки маршрутизации чтения: каждая - отдельная встроенная БД.
+    // До startReplication в них нет схемы, и маршрутизатор считает их недоступными
+    public static void installReplicas(String name, int count) {
+        for (int i = 1; i <= count; i++) {
+            ServerConfig.setProperty("db.replica." + i + ".url", url(replicaName(name, i)));
+        }
+    }
+
+    // Копирует схему основной БД в реплики и затем раз в lagMillis переносит в них все данные.
+    // Вместе с данными переезжает строка пульса, поэтому отставание, которое видит ReplicaRouter,
+    // настоящее: до lagMillis плюс интервал проверки. Вызывается после миграций
+    public static synchronized void startReplication(String name, int count, long lagMillis) throws SQLException {
+        if (count <= 0 || replication != null) {
+            return;
+        }
+        try (Connection primary = connect(name)) {
+            List<String> schema = new ArrayList<>();
+            try (Statement stmt = primary.createStatement();
+                 ResultSet rs = stmt.executeQuery("SCRIPT NODATA")) {
+                while (rs.next()) {
+                    schema.add(rs.getString(1));
+                }
+            }
+            for (int i = 1; i <= count; i++) {
+                try (Connection replica = connect(replicaName(name, i));
+                     Statement stmt = replica.createStatement()) {
+                    for (String sql : schema) {
+                        stmt.execute(sql);
+                    }
+                    // Таблицы перезаливаются целиком, порядок между связанными таблицами не важен
+                    stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                }
+            }
+        }
+
+        replication = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replication.scheduleWithFixedDelay(() -> {
+            try {
+                Map<String, List<Object[]>> snapshot = readAll(name);
+                for (int i = 1; i <= count; i++) {
+                    apply(replicaName(name, i), snapshot);
+                }
+            } catch (SQLException e) {
+                System.err.println("⚠️ Ошибка копирования в реплики: " + e.getMessage());
+            }
+        }, lagMillis, lagMillis, TimeUnit.MILLISECONDS);
+        System.out.println("📚 Встроенные реплики: " + count + " шт., копирование раз в " + lagMillis + " мс");
+    }
+
+    private static String replicaName(String name, int index) {
+        return name + "_replica" + index;
+    }
+
+    // Отдельное соединение мимо пула, чтобы копирование не попадало в статистику запросов
+    private static Connection connect(String name) throws SQLException {
+        return DriverManager.getConnection(url(name), "sa", "");
+    }
+
+    // Все таблицы одним снимком, как их видит одна транзакция
+    private static Map<String, List<Object[]>> readAll(String name) throws SQLException {
+        Map<String, List<Object[]>> snapshot = new LinkedHashMap<>();
+        try (Connection conn = connect(name)) {
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            List<String> tables = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT table_name FROM information_schema.tables "
+                         + "WHERE UPPER(table_schema) = 'PUBLIC' AND table_type = 'BASE TABLE'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            for (String table : tables) {
+                List<Object[]> rows = new ArrayList<>();
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT * FROM \"" + table + "\"")) {
+                    int columns = rs.getMetaData().getColumnCount();
+                    while (rs.next()) {
+                        Object[] row = new Object[columns];
+                        for (int c = 0; c < columns; c++) {
+                            row[c] = rs.getObject(c + 1);
+                        }
+                        rows.add(row);
+                    }
+                }
+                snapshot.put(table, rows);
+            }
+            conn.commit();
+        }
+        return snapshot;
+    }
+
+    // Замена содержимого одной транзакцией: читатели реплики видят либо старый снимок, либо новый
+    private static void apply(String name, Map<String, List<Object[]>> snapshot) throws SQLException {
+        try (Connection conn = connect(name)) {
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<String, List<Object[]>> table : snapshot.entrySet()) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.executeUpdate("DELETE FROM \"" + table.getKey() + "\"");
+                    }
+                    List<Object[]> rows = table.getValue();
+                    if (rows.isEmpty()) {
+                        continue;
+                    }
+                    String placeholders = "?" + ",?".repeat(rows.get(0).length - 1);
+                    try (PreparedStatement insert = conn.prepareStatement(
+                            "INSERT INTO \"" + table.getKey() + "\" VALUES (" + placeholders + ")")) {
+                        for (Object[] row : rows) {
+                            for (int c = 0; c < row.length; c++) {
+                                insert.setObject(c + 1, row[c]);
+                            }
+                            insert.addBatch();
+                        }
+                        insert.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+}
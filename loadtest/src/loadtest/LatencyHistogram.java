@@ -0,0 +1,65 @@
+package loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Лог-линейная гистограмма в микросекундах: 16 корзин на каждую степень двойки (~6% точности)
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long maxMicros() {
+        return max.get();
+    }
+
+    public long percentileMicros(double percentile) {
+        long n = total.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100.0 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long lower = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,156 @@
+package loadtest;
+
+import main.config.ServerConfig;
+import main.utils.Bulkhead;
+import main.utils.ConcurrencyLimiter;
+import main.utils.DatabaseConnection;
+import main.utils.PasswordHasher;
+import main.utils.QueryStats;
+import main.utils.ReplicaRouter;
+import main.utils.Startup;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Нагрузочный стенд: поднимает Main на встроенной БД, заливает синтетические данные и гоняет смесь запросов.
+// Пример: java loadtest.LoadTest --users=2000 --movies=5000 --reviews=100000 --concurrency=32 --duration=60
+// --replicas=N добавляет N реплик для чтения, --replicaLag=мс - с каким отставанием в них копируются данные
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "18080"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        int movies = Integer.parseInt(options.getOrDefault("movies", "2000"));
+        long reviews = Long.parseLong(options.getOrDefault("reviews", "20000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int replicas = Integer.parseInt(options.getOrDefault("replicas", "0"));
+        long replicaLag = Long.parseLong(options.getOrDefault("replicaLag", "1000"));
+        String mixSpec = options.getOrDefault("mix", "catalog:35,detail:30,search:15,review:10,login:5,admin:5");
+
+        System.out.println("🧪 Нагрузочный стенд: встроенная БД, порт " + port);
+        ServerConfig.setProperty("server.port", String.valueOf(port));
+        ServerConfig.setProperty("server.devMode", "false");
+        // Все клиенты стенда приходят с одного адреса
+        ServerConfig.setProperty("rate.limit.enabled", "false");
+        EmbeddedDatabase.install("fiml_load_" + seed);
+        EmbeddedDatabase.installReplicas("fiml_load_" + seed, replicas);
+
+        bootServer();
+        EmbeddedDatabase.startReplication("fiml_load_" + seed, replicas, replicaLag);
+
+        long seedStart = System.nanoTime();
+        DataGenerator data = new DataGenerator(seed, users, movies, reviews, DataGenerator.Passwords.SHARED);
+        new BulkLoader(data, BulkLoader.Mode.INSERT, 500).load();
+        System.out.printf("📦 Данные: %d пользователей, %d фильмов, %d отзывов за %.1f с%n",
+                users, movies, reviews, (System.nanoTime() - seedStart) / 1e9);
+
+        Workload workload = new Workload("http://localhost:" + port, Workload.parseMix(mixSpec), data);
+        workload.loginAdmin();
+        QueryStats.reset();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup + duration);
+        for (int i = 0; i < concurrency; i++) {
+            long workerSeed = seed * 31 + i;
+            workers.submit(() -> workload.runWorker(workerSeed, deadline));
+        }
+
+        System.out.println("🔥 Прогрев " + warmup + " с, затем замер " + duration + " с, клиентов: " + concurrency);
+        Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+        QueryStats.reset();
+        workload.setRecording(true);
+        long measureStart = System.nanoTime();
+
+        workers.shutdown();
+        workers.awaitTermination(duration + 60L, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - measureStart) / 1e9;
+
+        printReport(workload, elapsed);
+        printHashingStats();
+        printTopQueries(10);
+        System.exit(0);
+    }
+
+    private static void bootServer() throws Exception {
+        // Main лежит в пакете по умолчанию, поэтому вызываем через reflection
+        Class.forName("Main").getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        // Main возвращается сразу после открытия порта; данные заливаются в уже созданную схему
+        if (!Startup.awaitReady(TimeUnit.MINUTES.toMillis(2))) {
+            throw new IllegalStateException("Server did not become ready: " + Startup.getStats());
+        }
+    }
+
+    private static void printReport(Workload workload, double seconds) {
+        System.out.println("\n📊 Результаты за " + String.format("%.1f", seconds) + " с");
+        System.out.println("══════════════════════════════════════════════════════════════════════════════");
+        System.out.printf("%-8s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+                "op", "requests", "req/s", "5xx", "4xx", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        LatencyHistogram overall = new LatencyHistogram();
+        long totalErrors = 0;
+        for (Map.Entry<Workload.Operation, Workload.OperationStats> entry : workload.getStats().entrySet()) {
+            Workload.OperationStats stats = entry.getValue();
+            if (stats.latency.count() == 0) {
+                continue;
+            }
+            printRow(entry.getKey().name().toLowerCase(), stats.latency, seconds,
+                    stats.errors.get(), stats.clientErrors.get());
+            totalErrors += stats.errors.get();
+        }
+
+        long total = workload.getStats().values().stream().mapToLong(s -> s.latency.count()).sum();
+        System.out.println("──────────────────────────────────────────────────────────────────────────────");
+        System.out.printf("%-8s %9d %9.1f %7d%n", "total", total, total / seconds, totalErrors);
+    }
+
+    private static void printRow(String name, LatencyHistogram latency, double seconds, long errors, long clientErrors) {
+        System.out.printf("%-8s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, latency.count(), latency.count() / seconds, errors, clientErrors,
+                latency.percentileMicros(50) / 1000.0,
+                latency.percentileMicros(90) / 1000.0,
+                latency.percentileMicros(99) / 1000.0,
+                latency.percentileMicros(99.9) / 1000.0,
+                latency.maxMicros() / 1000.0);
+    }
+
+    private static void printHashingStats() {
+        System.out.println("\n🔐 Пул хэширования паролей: " + PasswordHasher.getStats());
+        System.out.println("🚦 Предел конкурентности: " + ConcurrencyLimiter.getStats());
+        System.out.println("🧱 Отсеки: " + Bulkhead.getStats());
+        System.out.println("🔌 Пул соединений: " + DatabaseConnection.getPoolStats());
+        if (ReplicaRouter.isEnabled()) {
+            System.out.println("📚 Реплики: " + ReplicaRouter.getStats());
+        }
+    }
+
+    private static void printTopQueries(int limit) {
+        System.out.println("\n🐢 Запросы к БД по суммарному времени:");
+        List<QueryStats.Entry> entries = new ArrayList<>(QueryStats.snapshot());
+        for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+            QueryStats.Entry entry = entries.get(i);
+            String sql = entry.getSql();
+            System.out.printf("%10.0f ms %8d x %8.2f ms avg  %s%n",
+                    entry.getTotalMillis(), entry.getCount(), entry.getAverageMillis(),
+                    sql.length() > 100 ? sql.substring(0, 100) + "…" : sql);
+        }
+    }
+
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,204 @@
+package loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Смесь запросов и HTTP-вызовы к поднятому Main
+public class Workload {
+
+    public enum Operation { CATALOG, DETAIL, SEARCH, REVIEW, LOGIN, ADMIN }
+
+    public static class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong clientErrors = new AtomicLong();
+    }
+
+    private static final String[] SORTS = {"rating", "year", "title", "reviews", ""};
+
+    // Те же вызовы, что делает админ-панель (admin.js)
+    private static final String[] ADMIN_PATHS = {
+            "/api/admin/dashboard", "/api/admin/movies?page=1&limit=20", "/api/admin/reviews?filter=all",
+            "/api/admin/users?page=1&limit=20&filter=all", "/api/admin/genres"
+    };
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final DataGenerator data;
+    private final Zipf moviePopularity;
+    private final Zipf userActivity;
+    private volatile boolean recording;
+    private String adminCookie;
+
+    public Workload(String baseUrl, Map<Operation, Integer> mix, DataGenerator data) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.data = data;
+        this.moviePopularity = new Zipf(data.getMovies(), 1.0);
+        this.userActivity = new Zipf(data.getUsers(), 0.8);
+        for (Operation op : Operation.values()) {
+            stats.put(op, new OperationStats());
+        }
+    }
+
+    public static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    public void loginAdmin() throws IOException, InterruptedException {
+        adminCookie = login(DataGenerator.ADMIN_EMAIL, DataGenerator.ADMIN_PASSWORD);
+        if (adminCookie == null) {
+            throw new IllegalStateException("Admin login failed");
+        }
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public Map<Operation, OperationStats> getStats() {
+        return stats;
+    }
+
+    // Цикл одного виртуального пользователя до истечения deadline (System.nanoTime)
+    public void runWorker(long seed, long deadline) {
+        Random random = new Random(seed);
+        String userCookie = null;
+
+        while (System.nanoTime() < deadline) {
+            Operation op = pick(random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                if (op == Operation.REVIEW && userCookie == null) {
+                    userCookie = login(randomUserEmail(random), DataGenerator.USER_PASSWORD);
+                }
+                status = execute(op, random, userCookie);
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (recording) {
+                OperationStats opStats = stats.get(op);
+                opStats.latency.record((System.nanoTime() - start) / 1000);
+                if (status < 0 || status >= 500) {
+                    opStats.errors.incrementAndGet();
+                } else if (status >= 400) {
+                    opStats.clientErrors.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private Operation pick(Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.CATALOG;
+    }
+
+    private int execute(Operation op, Random random, String userCookie) throws IOException, InterruptedException {
+        switch (op) {
+            case CATALOG: {
+                String sort = SORTS[random.nextInt(SORTS.length)];
+                String query = sort.isEmpty() ? "limit=50" : "sortBy=" + sort + "&order=desc&limit=50";
+                return get("/api/movies?" + query, null);
+            }
+            case DETAIL:
+                return get("/api/movies/" + randomMovieId(random), null);
+            case SEARCH: {
+                String term = DataGenerator.TITLE_WORDS[random.nextInt(DataGenerator.TITLE_WORDS.length)];
+                return get("/api/movies/search?q=" + URLEncoder.encode(term, StandardCharsets.UTF_8), null);
+            }
+            case REVIEW: {
+                // Случайный (не популярный) фильм, чтобы реже натыкаться на уже оставленный отзыв
+                int movieId = data.getFirstMovieId() + random.nextInt(data.getMovies());
+                String body = "{\"movieId\":" + movieId + ",\"rating\":" + (1 + random.nextInt(10))
+                        + ",\"comment\":\"Нагрузочный отзыв\"}";
+                return post("/api/reviews", body, userCookie).statusCode();
+            }
+            case LOGIN: {
+                String body = "{\"email\":\"" + randomUserEmail(random) + "\",\"password\":\""
+                        + DataGenerator.USER_PASSWORD + "\"}";
+                return post("/api/auth/login", body, null).statusCode();
+            }
+            case ADMIN:
+                return get(ADMIN_PATHS[random.nextInt(ADMIN_PATHS.length)], adminCookie);
+            default:
+                throw new IllegalArgumentException(op.name());
+        }
+    }
+
+    private int randomMovieId(Random random) {
+        return data.getFirstMovieId() + moviePopularity.next(random) - 1;
+    }
+
+    private String randomUserEmail(Random random) {
+        return DataGenerator.userEmail(userActivity.next(random));
+    }
+
+    private String login(String email, String password) throws IOException, InterruptedException {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+        HttpResponse<String> response = post("/api/auth/login", body, null);
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return response.headers().allValues("Set-Cookie").stream()
+                .filter(cookie -> cookie.startsWith("sessionId="))
+                .map(cookie -> cookie.substring(0, cookie.indexOf(';')))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private int get(String path, String cookie) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpResponse<String> post(String path, String body, String cookie)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (cookie != null) {
+            request.header("Cookie", cookie);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,40 @@
+package loadtest;
+
+import java.util.Random;
+
+// Выборка рангов 1..n с вероятностью ~ 1/k^s (популярные фильмы, активные пользователи)
+public class Zipf {
+    private final double[] cumulative;
+
+    public Zipf(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    // Ранг от 1 до n
+    public int next(Random random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low + 1;
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+}
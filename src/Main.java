@@ -1,46 +1,65 @@
 //package main;
 
 import main.config.ServerConfig;
+import main.dao.GenreDAO;
+import main.services.MovieService;
 import main.handlers.*;
+import main.utils.Bulkhead;
+import main.utils.ConcurrencyLimiter;
 import main.utils.DatabaseConnection;
+import main.utils.HealthMonitor;
+import main.utils.PasswordHasher;
+import main.utils.ReplicaRouter;
+import main.utils.SchemaMigrator;
 import main.utils.SessionManager;
+import main.utils.Startup;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class Main {
     public static void main(String[] args) {
         try {
             System.out.println("🚀 Запуск киносайта...");
+            Startup.begin();
 
             // Инициализация конфигурации
             initializeConfiguration();
 
-            // Инициализация базы данных
-            initializeDatabase();
-
             // Создание HTTP сервера
             int port = ServerConfig.getServerPort();
-            HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
-
-            // Регистрация обработчиков
-            server.createContext("/api/auth", new AuthHandler());
-            server.createContext("/api/movies", new MovieHandler());
-            server.createContext("/api/reviews", new ReviewHandler());
-            server.createContext("/api/user", new UserHandler());
-            server.createContext("/api/admin", new AdminHandler());
+            HttpServer server = HttpServer.create(new InetSocketAddress(port), ServerConfig.getServerBacklog());
+
+            // Регистрация обработчиков; сами обработчики создаются при первом запросе
+            registerApi(server, "/api/auth", AuthHandler::new, new BulkheadFilter(Bulkhead.AUTH));
+            registerApi(server, "/api/movies", MovieHandler::new, new BulkheadFilter());
+            registerApi(server, "/api/reviews", ReviewHandler::new, new BulkheadFilter());
+            registerApi(server, "/api/user", UserHandler::new, new BulkheadFilter());
+            registerApi(server, "/api/admin", AdminHandler::new, new BulkheadFilter(Bulkhead.ADMIN));
+            server.createContext("/health", new HealthHandler());
             server.createContext("/", new StaticFileHandler());
 
             // Настройка пула потоков
-            server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(
+            server.setExecutor(ConcurrencyLimiter.timed(java.util.concurrent.Executors.newFixedThreadPool(
                     ServerConfig.getMaxThreads()
-            ));
+            )));
 
-            // Запуск сервера
+            // Запуск сервера: порт слушается до инициализации БД, API до готовности отвечает 503
             server.start();
+            HealthMonitor.start();
+
+            // Схема БД и сессии прошлого запуска готовятся параллельно, реплики - после схемы.
+            // Прогрев кэшей идет в фоне и готовность не задерживает
+            CompletableFuture<Void> database = Startup.stage("database", Main::initializeDatabase);
+            Startup.stage("replicas", ReplicaRouter::start, database);
+            Startup.stage("sessions", SessionManager::restore);
+            Startup.background("warmup", Main::warmCaches, database);
+            Startup.finish();
 
             System.out.println("\n🎬 Киносайт успешно запущен!");
             System.out.println("══════════════════════════════════════");
@@ -62,7 +81,11 @@ public class Main {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("\n🛑 Остановка сервера...");
                 server.stop(0);
+                HealthMonitor.shutdown();
                 SessionManager.shutdown();
+                PasswordHasher.shutdown();
+                Bulkhead.shutdown();
+                DatabaseConnection.shutdown();
                 System.out.println("✅ Сервер остановлен");
             }));
 
@@ -72,6 +95,23 @@ public class Main {
         }
     }
 
+    // Фильтры API: проверка готовности, ограничение частоты по IP (до очередей - всплеск с одного адреса
+    // получает 429, а не занимает отсек), переход на потоки отсека, сброс нагрузки, срок запроса,
+    // область запроса (нужна для пользователя сессии), ограничение по пользователю, выбор реплики.
+    // Статика идет мимо них и продолжает отдаваться при перегрузке
+    private static void registerApi(HttpServer server, String path, Supplier<HttpHandler> handler,
+                                    BulkheadFilter bulkhead) {
+        HttpContext context = server.createContext(path, new LazyHandler(handler));
+        context.getFilters().add(new ReadinessFilter());
+        context.getFilters().add(RateLimitFilter.byIp());
+        context.getFilters().add(bulkhead);
+        context.getFilters().add(new LoadSheddingFilter());
+        context.getFilters().add(new DeadlineFilter());
+        context.getFilters().add(new RequestScopeFilter());
+        context.getFilters().add(RateLimitFilter.byUser());
+        context.getFilters().add(new ReadRoutingFilter());
+    }
+
     private static void initializeConfiguration() {
         try {
             // Пытаемся создать конфиг по умолчанию если его нет
@@ -88,148 +128,22 @@ public class Main {
         }
     }
 
-    private static void initializeDatabase() {
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            // Создание таблицы пользователей
-            String createUsersTable = "CREATE TABLE IF NOT EXISTS users (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "username VARCHAR(50) UNIQUE NOT NULL," +
-                    "email VARCHAR(100) UNIQUE NOT NULL," +
-                    "password_hash VARCHAR(255) NOT NULL," +
-                    "role ENUM('USER', 'ADMIN') DEFAULT 'USER'," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "is_active BOOLEAN DEFAULT TRUE" +
-                    ")";
-            stmt.execute(createUsersTable);
-
-            // Создание таблицы фильмов
-            String createMoviesTable = "CREATE TABLE IF NOT EXISTS movies (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "title VARCHAR(255) NOT NULL," +
-                    "director VARCHAR(255)," +
-                    "year INT," +
-                    "description TEXT," +
-                    "duration INT," +
-                    "poster_url VARCHAR(500)," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                    ")";
-            stmt.execute(createMoviesTable);
-
-            // Создание таблицы жанров
-            String createGenresTable = "CREATE TABLE IF NOT EXISTS genres (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "name VARCHAR(50) UNIQUE NOT NULL" +
-                    ")";
-            stmt.execute(createGenresTable);
-
-            // Создание таблицы связи фильмов и жанров
-            String createMovieGenresTable = "CREATE TABLE IF NOT EXISTS movie_genres (" +
-                    "movie_id INT," +
-                    "genre_id INT," +
-                    "PRIMARY KEY (movie_id, genre_id)," +
-                    "FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE," +
-                    "FOREIGN KEY (genre_id) REFERENCES genres(id) ON DELETE CASCADE" +
-                    ")";
-            stmt.execute(createMovieGenresTable);
-
-            // Создание таблицы отзывов
-            String createReviewsTable = "CREATE TABLE IF NOT EXISTS reviews (" +
-                    "id INT PRIMARY KEY AUTO_INCREMENT," +
-                    "movie_id INT," +
-                    "user_id INT," +
-                    "rating INT CHECK (rating >= 1 AND rating <= 10)," +
-                    "comment TEXT," +
-                    "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                    "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
-                    "is_approved BOOLEAN DEFAULT TRUE," +
-                    "FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE," +
-                    "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE," +
-                    "UNIQUE KEY unique_review (movie_id, user_id)" +
-                    ")";
-            stmt.execute(createReviewsTable);
-
-            // Создание индексов для оптимизации
-            String createIndexes =
-                    "CREATE INDEX IF NOT EXISTS idx_movies_title ON movies(title);" +
-                            "CREATE INDEX IF NOT EXISTS idx_movies_year ON movies(year);" +
-                            "CREATE INDEX IF NOT EXISTS idx_reviews_movie_id ON reviews(movie_id);" +
-                            "CREATE INDEX IF NOT EXISTS idx_reviews_user_id ON reviews(user_id);" +
-                            "CREATE INDEX IF NOT EXISTS idx_reviews_created_at ON reviews(created_at);" +
-                            "CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);";
-
-            String[] indexes = createIndexes.split(";");
-            for (String index : indexes) {
-                if (!index.trim().isEmpty()) {
-                    try {
-                        stmt.execute(index.trim());
-                    } catch (SQLException e) {
-                        // Игнорируем ошибки создания индексов (могут уже существовать)
-                    }
-                }
-            }
-
-            // Добавление жанров, если таблица пустая
-            String checkGenres = "SELECT COUNT(*) as count FROM genres";
-            var rs = stmt.executeQuery(checkGenres);
-            if (rs.next() && rs.getInt("count") == 0) {
-                String[] genres = {
-                        "Драма", "Комедия", "Боевик", "Фантастика", "Ужасы",
-                        "Мелодрама", "Триллер", "Детектив", "Приключения", "Аниме",
-                        "Фэнтези", "Исторический", "Документальный", "Мюзикл", "Вестерн",
-                        "Криминал", "Семейный", "Биография", "Спорт", "Военный"
-                };
-
-                for (String genre : genres) {
-                    stmt.execute("INSERT IGNORE INTO genres (name) VALUES ('" + genre + "')");
-                }
-            }
-
-            // Создание администратора по умолчанию
-            String checkAdmin = "SELECT COUNT(*) as count FROM users WHERE email = 'admin@movie.com'";
-            rs = stmt.executeQuery(checkAdmin);
-            if (rs.next() && rs.getInt("count") == 0) {
-                // Пароль: admin123
-                String adminHash = "$2a$12$Yl6Z6Q8L8Q8L8Q8L8Q8L8Oe6Z6Q8L8Q8L8Q8L8Q8L8Q8L8Q8L8Q8L";
-                stmt.execute("INSERT INTO users (username, email, password_hash, role) VALUES " +
-                        "('admin', 'admin@movie.com', '" + adminHash + "', 'ADMIN')");
-
-                // Создание тестового пользователя
-                String userHash = "$2a$12$Yl6Z6Q8L8Q8L8Q8L8Q8L8Oe6Z6Q8L8Q8L8Q8L8Q8L8Q8L8Q8L8Q8L"; // password123
-                stmt.execute("INSERT INTO users (username, email, password_hash) VALUES " +
-                        "('alex', 'alex@example.com', '" + userHash + "')");
-            }
-
-            // Добавление тестовых фильмов, если таблица пустая
-            String checkMovies = "SELECT COUNT(*) as count FROM movies";
-            rs = stmt.executeQuery(checkMovies);
-            if (rs.next() && rs.getInt("count") == 0) {
-                // Добавляем несколько тестовых фильмов
-                String[] movieInserts = {
-                        "INSERT INTO movies (title, director, year, description, duration) VALUES " +
-                                "('Интерстеллар', 'Кристофер Нолан', 2014, 'Фантастический эпос о путешествии в космос', 169)",
+    // Ошибка передается этапу запуска: он сообщит о ней и повторит попытку
+    private static void initializeDatabase() throws SQLException {
+        // Схема и начальные данные ведутся версионными миграциями
+        SchemaMigrator.migrate();
 
-                        "INSERT INTO movies (title, director, year, description, duration) VALUES " +
-                                "('Начало', 'Кристофер Нолан', 2010, 'Фильм о краже идей через сны', 148)",
-
-                        "INSERT INTO movies (title, director, year, description, duration) VALUES " +
-                                "('Криминальное чтиво', 'Квентин Тарантино', 1994, 'Культовый фильм о гангстерах', 154)",
-
-                        "INSERT INTO movies (title, director, year, description, duration) VALUES " +
-                                "('Побег из Шоушенка', 'Фрэнк Дарабонт', 1994, 'Драма о заключенном в тюрьме', 142)"
-                };
-
-                for (String insert : movieInserts) {
-                    stmt.execute(insert);
-                }
-            }
-
-            System.out.println("✅ База данных инициализирована успешно");
+        System.out.println("✅ База данных инициализирована успешно");
+    }
 
-        } catch (Exception e) {
-            System.err.println("❌ Ошибка при инициализации базы данных: " + e.getMessage());
-            e.printStackTrace();
-        }
+    // Справочник жанров и первые страницы каталога до прихода пользователей
+    private static void warmCaches() throws SQLException {
+        long start = System.currentTimeMillis();
+        int genres = new GenreDAO().warmUp();
+        MovieService movies = new MovieService();
+        movies.getTopRatedMovies(10);
+        movies.getAllMovies("created", "desc", 20);
+        System.out.println("🔥 Кэши прогреты: " + genres + " жанров, топ и новинки за "
+                + (System.currentTimeMillis() - start) + " мс");
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import main.utils.SessionManager;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 public class ServerConfig {
@@ -12,7 +14,7 @@ public class ServerConfig {
 
     // Константы с значениями по умолчанию
     private static final int DEFAULT_PORT = 8080;
-    private static final String DEFAULT_DB_URL = "jdbc:mysql://localhost:3306/movie_db";
+    private static final String DEFAULT_DB_URL = "jdbc:mysql://localhost:3306/movie_db?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true";
     private static final String DEFAULT_DB_USER = "root";
     private static final String DEFAULT_DB_PASSWORD = "admin123";
     private static final int DEFAULT_MAX_THREADS = 10;
@@ -45,8 +47,8 @@ public class ServerConfig {
         properties.setProperty("session.timeout", "86400"); // 24 часа в секундах
         properties.setProperty("cors.allowedOrigins", "*");
         properties.setProperty("upload.maxFileSize", "10485760"); // 10MB
-        properties.setProperty("rate.limit.requests", "100");
-        properties.setProperty("rate.limit.period", "3600"); // 1 час
+        properties.setProperty("rate.limit.requests", "300");
+        properties.setProperty("rate.limit.period", "60"); // 1 минута
     }
 
     // Методы для получения конфигурационных значений
@@ -82,6 +84,130 @@ public class ServerConfig {
         return Long.parseLong(properties.getProperty("session.timeout", "86400")) * 1000; // Конвертируем в миллисекунды
     }
 
+    public static long getSessionCleanupInterval() {
+        return Long.parseLong(properties.getProperty("session.cleanup.interval", "60")) * 1000;
+    }
+
+    public static String getSessionMode() {
+        return properties.getProperty("session.mode", "server");
+    }
+
+    public static String getSessionTokenSecret() {
+        return properties.getProperty("session.token.secret", "");
+    }
+
+    public static String getSessionStore() {
+        return properties.getProperty("session.store", "file");
+    }
+
+    public static String getSessionStoreDirectory() {
+        return properties.getProperty("session.store.dir", "data/sessions");
+    }
+
+    public static long getSessionSnapshotInterval() {
+        return Long.parseLong(properties.getProperty("session.store.snapshotInterval", "300")) * 1000;
+    }
+
+    public static long getSessionRestoreWaitMillis() {
+        return Long.parseLong(properties.getProperty("session.store.restoreWaitMs", "5000"));
+    }
+
+    // Как долго узел полагается на проверенный по общему хранилищу отзыв токена (session.store=kv)
+    public static long getSessionRevocationRefreshMillis() {
+        return Long.parseLong(properties.getProperty("session.revocation.refreshMs", "1000"));
+    }
+
+    // 0 - очередь соединений по умолчанию системы
+    public static int getServerBacklog() {
+        return Integer.parseInt(properties.getProperty("server.backlog", "128"));
+    }
+
+    // Пауза перед повтором упавшего обязательного этапа запуска (например, БД еще недоступна)
+    public static long getStartupRetryMillis() {
+        return Long.parseLong(properties.getProperty("server.startup.retryMs", "5000"));
+    }
+
+    // Как часто монитор здоровья обновляет ответ /health/ready
+    public static long getHealthProbeIntervalMillis() {
+        return Long.parseLong(properties.getProperty("server.health.probeIntervalMs", "1000"));
+    }
+
+    // true - при переполнении очередей отсеков узел снимается с балансировки (503), false - только DEGRADED
+    public static boolean isHealthFailOnSaturation() {
+        return Boolean.parseBoolean(properties.getProperty("server.health.failOnSaturation", "false"));
+    }
+
+    // Кэш готовых ответов публичных GET-запросов каталога
+    public static boolean isCacheEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("cache.enabled", "true"));
+    }
+
+    public static long getCacheTtlSeconds() {
+        return Long.parseLong(properties.getProperty("cache.ttl", "3600"));
+    }
+
+    public static int getCacheMaxSize() {
+        return Integer.parseInt(properties.getProperty("cache.maxSize", "1000"));
+    }
+
+    // Насколько ответ кэша может отставать от записи через другой узел; 0 - узел один, только версии
+    public static long getCacheNodeStalenessSeconds() {
+        return Long.parseLong(properties.getProperty("cache.nodeStaleness", "5"));
+    }
+
+    // Справочник жанров и наборы жанров фильмов: сброс при изменении виден только своему узлу,
+    // другие узлы увидят изменение не позже чем через этот срок
+    public static long getGenreCacheTtlSeconds() {
+        return Long.parseLong(properties.getProperty("cache.genres.ttl", "60"));
+    }
+
+    public static int getGenreCacheMaxMovies() {
+        return Integer.parseInt(properties.getProperty("cache.genres.maxMovies", "10000"));
+    }
+
+    // max-age для браузеров и CDN; 0 - хранить, но проверять по ETag при каждом запросе
+    public static int getCacheHttpMaxAge() {
+        return Integer.parseInt(properties.getProperty("cache.http.maxAge", "0"));
+    }
+
+    public static long getMaxQueueWaitMillis() {
+        return Long.parseLong(properties.getProperty("server.maxQueueWaitMs", "500"));
+    }
+
+    // Срок запроса в миллисекундах по классу маршрута: read, search, write, auth, admin
+    public static long getRequestTimeoutMillis(String route) {
+        String fallback;
+        switch (route) {
+            case "search": fallback = "3000"; break;
+            case "write":
+            case "auth": fallback = "10000"; break;
+            case "admin": fallback = "30000"; break;
+            default: fallback = "5000";
+        }
+        return Long.parseLong(properties.getProperty("request.timeout." + route, fallback));
+    }
+
+    public static boolean isConcurrencyLimitEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("server.concurrency.enabled", "true"));
+    }
+
+    public static int getConcurrencyMinLimit() {
+        return Integer.parseInt(properties.getProperty("server.concurrency.minLimit", "2"));
+    }
+
+    public static int getConcurrencyMaxLimit() {
+        // 0 - по числу потоков всех отсеков: больше одновременно все равно не обрабатывается
+        int limit = Integer.parseInt(properties.getProperty("server.concurrency.maxLimit", "0"));
+        if (limit > 0) {
+            return limit;
+        }
+        int threads = 0;
+        for (String bulkhead : new String[]{"admin", "auth", "read", "write"}) {
+            threads += getBulkheadThreads(bulkhead);
+        }
+        return threads;
+    }
+
     public static String getAllowedOrigins() {
         return properties.getProperty("cors.allowedOrigins", "*");
     }
@@ -91,11 +217,175 @@ public class ServerConfig {
     }
 
     public static int getRateLimitRequests() {
-        return Integer.parseInt(properties.getProperty("rate.limit.requests", "100"));
+        return Integer.parseInt(properties.getProperty("rate.limit.requests", "300"));
     }
 
     public static int getRateLimitPeriod() {
-        return Integer.parseInt(properties.getProperty("rate.limit.period", "3600"));
+        return Integer.parseInt(properties.getProperty("rate.limit.period", "60"));
+    }
+
+    // Лимиты классов маршрутов (auth, search, write); без настройки действует общий лимит
+    public static int getRateLimitRequests(String routeClass) {
+        String value = properties.getProperty("rate.limit." + routeClass + ".requests");
+        return value != null ? Integer.parseInt(value) : getRateLimitRequests();
+    }
+
+    public static int getRateLimitPeriod(String routeClass) {
+        String value = properties.getProperty("rate.limit." + routeClass + ".period");
+        return value != null ? Integer.parseInt(value) : getRateLimitPeriod();
+    }
+
+    public static boolean isRateLimitEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("rate.limit.enabled", "true"));
+    }
+
+    public static boolean isRateLimitByIpEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("rate.limit.ip.enabled", "true"));
+    }
+
+    public static boolean isRateLimitByUserEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("rate.limit.user.enabled", "true"));
+    }
+
+    public static int getRateLimitMaxBuckets() {
+        return Integer.parseInt(properties.getProperty("rate.limit.maxBuckets", "100000"));
+    }
+
+    public static int getPasswordHashThreads() {
+        // 0 - по числу процессоров
+        int threads = Integer.parseInt(properties.getProperty("password.hash.threads", "0"));
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public static int getPasswordHashQueueSize() {
+        // 0 - по четыре задачи на поток
+        return Integer.parseInt(properties.getProperty("password.hash.queueSize", "0"));
+    }
+
+    public static long getPasswordHashMaxWaitMillis() {
+        return Long.parseLong(properties.getProperty("password.hash.maxWaitMs", "2000"));
+    }
+
+    public static int getPasswordHashCost() {
+        // 0 - подобрать по password.hash.targetMs на текущем железе
+        return Integer.parseInt(properties.getProperty("password.hash.cost", "12"));
+    }
+
+    public static long getPasswordHashTargetMillis() {
+        return Long.parseLong(properties.getProperty("password.hash.targetMs", "250"));
+    }
+
+    public static long getPasswordCacheTtlMillis() {
+        return Long.parseLong(properties.getProperty("password.verifyCache.ttl", "300")) * 1000;
+    }
+
+    public static int getPasswordCacheMaxSize() {
+        return Integer.parseInt(properties.getProperty("password.verifyCache.maxSize", "10000"));
+    }
+
+    public static int getDatabasePoolSize() {
+        return Integer.parseInt(properties.getProperty("db.poolSize", "10"));
+    }
+
+    public static int getDatabaseMaxPoolSize() {
+        return Integer.parseInt(properties.getProperty("db.maxPoolSize", "20"));
+    }
+
+    public static long getDatabaseConnectionTimeout() {
+        return Long.parseLong(properties.getProperty("db.connectionTimeout", "30000"));
+    }
+
+    public static long getDatabaseIdleTimeout() {
+        return Long.parseLong(properties.getProperty("db.idleTimeout", "600000"));
+    }
+
+    // Подготовленных запросов в кэше каждого соединения пула (0 - без кэша).
+    // Для MySQL нужен useServerPrepStmts=true в URL (есть в URL по умолчанию): без него драйвер
+    // подставляет параметры сам, и сервер разбирает текст каждого запроса заново
+    public static int getDatabaseStatementCacheSize() {
+        return Integer.parseInt(properties.getProperty("db.statementCacheSize", "64"));
+    }
+
+    // Наибольшее число ключей в одном IN (...) пакетной загрузки
+    public static int getDatabaseBatchSize() {
+        return Integer.parseInt(properties.getProperty("db.batchSize", "500"));
+    }
+
+    // Реплики для чтения: db.replica.1.url, db.replica.2.url, ... (в URL JDBC бывают запятые).
+    // Нет ни одной - все запросы идут в основную БД
+    public static List<String> getReplicaUrls() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 1; ; i++) {
+            String url = properties.getProperty("db.replica." + i + ".url", "").trim();
+            if (url.isEmpty()) {
+                return urls;
+            }
+            urls.add(url);
+        }
+    }
+
+    public static String getReplicaUser() {
+        return properties.getProperty("db.replica.user", getDatabaseUser());
+    }
+
+    public static String getReplicaPassword() {
+        return properties.getProperty("db.replica.password", getDatabasePassword());
+    }
+
+    // 0 - отставание не проверяется, реплика используется, пока отвечает
+    public static long getReplicaMaxLagMillis() {
+        return Long.parseLong(properties.getProperty("db.replica.maxLagMs", "5000"));
+    }
+
+    public static long getReplicaCheckIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.replica.checkIntervalMs", "1000"));
+    }
+
+    public static long getReplicaStickyMillis() {
+        return Long.parseLong(properties.getProperty("db.replica.stickyMs", "10000"));
+    }
+
+    // Отсеки: admin, auth, read (публичное чтение), write. Для read по умолчанию - server.maxThreads
+    public static int getBulkheadThreads(String bulkhead) {
+        String fallback = "read".equals(bulkhead) ? String.valueOf(getMaxThreads()) : bulkheadDefault(bulkhead, 2, 4, 4);
+        return Integer.parseInt(properties.getProperty("bulkhead." + bulkhead + ".threads", fallback));
+    }
+
+    public static int getBulkheadQueueSize(String bulkhead) {
+        return Integer.parseInt(properties.getProperty("bulkhead." + bulkhead + ".queueSize", "0"));
+    }
+
+    public static int getBulkheadDbConnections(String bulkhead) {
+        String fallback = "read".equals(bulkhead) ? String.valueOf(getMaxThreads()) : bulkheadDefault(bulkhead, 2, 3, 4);
+        return Integer.parseInt(properties.getProperty("bulkhead." + bulkhead + ".dbConnections", fallback));
+    }
+
+    private static String bulkheadDefault(String bulkhead, int admin, int auth, int write) {
+        switch (bulkhead) {
+            case "admin": return String.valueOf(admin);
+            case "auth": return String.valueOf(auth);
+            default: return String.valueOf(write);
+        }
+    }
+
+    public static boolean isQueryInstrumentationEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.instrumentation.enabled", "true"));
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return Long.parseLong(properties.getProperty("db.slowQuery.thresholdMs", "500"));
+    }
+
+    public static String getSlowQueryLogFile() {
+        return properties.getProperty("db.slowQuery.file", "logs/slow-queries.log");
+    }
+
+    public static long getLogMaxSize() {
+        return Long.parseLong(properties.getProperty("log.maxSize", "10485760"));
+    }
+
+    public static int getLogMaxFiles() {
+        return Integer.parseInt(properties.getProperty("log.maxFiles", "5"));
     }
 
     // Методы для обновления конфигурации
@@ -150,19 +440,66 @@ server.port=8080
 server.maxThreads=10
 server.webRoot=src/main/resources/web
 server.devMode=true
+server.backlog=128
+server.startup.retryMs=5000
+server.health.probeIntervalMs=1000
+server.health.failOnSaturation=false
+server.maxQueueWaitMs=500
+server.concurrency.enabled=true
+server.concurrency.minLimit=2
+server.concurrency.maxLimit=0
+
+# Сроки выполнения запросов (мс), превышение - 504
+request.timeout.read=5000
+request.timeout.search=3000
+request.timeout.write=10000
+request.timeout.auth=10000
+request.timeout.admin=30000
 
 # Настройки базы данных
-db.url=jdbc:mysql://localhost:3306/movie_db
+db.url=jdbc:mysql://localhost:3306/movie_db?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true
 db.user=root
-db.password=password
+db.password=admin123
 db.poolSize=10
 db.maxPoolSize=20
 db.connectionTimeout=30000
 db.idleTimeout=600000
+db.statementCacheSize=64
+db.batchSize=500
+db.instrumentation.enabled=true
+db.slowQuery.thresholdMs=500
+db.slowQuery.file=logs/slow-queries.log
+
+# Реплики для чтения: db.replica.1.url, db.replica.2.url, ... (нет ни одной - чтение из основной БД)
+#db.replica.1.url=jdbc:mysql://replica1:3306/movie_db?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true
+db.replica.maxLagMs=5000
+db.replica.checkIntervalMs=1000
+db.replica.stickyMs=10000
+
+# Отсеки: свои потоки, очередь (0 - 4 задачи на поток) и квота соединений БД для каждого класса трафика
+bulkhead.admin.threads=2
+bulkhead.admin.queueSize=0
+bulkhead.admin.dbConnections=2
+bulkhead.auth.threads=4
+bulkhead.auth.queueSize=0
+bulkhead.auth.dbConnections=3
+bulkhead.read.threads=10
+bulkhead.read.queueSize=0
+bulkhead.read.dbConnections=10
+bulkhead.write.threads=4
+bulkhead.write.queueSize=0
+bulkhead.write.dbConnections=4
 
 # Настройки сессий
 session.timeout=86400
-session.cleanup.interval=3600
+session.cleanup.interval=60
+session.mode=server
+session.token.secret=
+session.store=file
+session.store.dir=data/sessions
+session.store.snapshotInterval=300
+session.store.restoreWaitMs=5000
+session.revocation.refreshMs=1000
 
 # Настройки безопасности
 cors.allowedOrigins=*
@@ -171,11 +508,27 @@ password.minLength=8
 password.requireUppercase=true
 password.requireLowercase=true
 password.requireNumbers=true
+password.hash.threads=0
+password.hash.queueSize=0
+password.hash.maxWaitMs=2000
+password.hash.cost=12
+password.hash.targetMs=250
+password.verifyCache.ttl=300
+password.verifyCache.maxSize=10000
 
 # Настройки ограничения запросов
-rate.limit.requests=100
-rate.limit.period=3600
+rate.limit.enabled=true
+rate.limit.requests=300
+rate.limit.period=60
 rate.limit.ip.enabled=true
+rate.limit.user.enabled=true
+rate.limit.auth.requests=10
+rate.limit.auth.period=60
+rate.limit.search.requests=30
+rate.limit.search.period=60
+rate.limit.write.requests=60
+rate.limit.write.period=60
+rate.limit.maxBuckets=100000
 
 # Настройки логирования
 log.level=INFO
@@ -195,6 +548,10 @@ mail.from=noreply@movie-site.com
 cache.enabled=true
 cache.ttl=3600
 cache.maxSize=1000
+cache.http.maxAge=0
+cache.nodeStaleness=5
+cache.genres.ttl=60
+cache.genres.maxMovies=10000
 
 # Настройки поиска
 search.minQueryLength=2
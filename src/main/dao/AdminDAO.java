@@ -5,6 +5,8 @@ import main.models.Movie;
 import main.models.Review;
 import main.models.Genre;
 import main.utils.DatabaseConnection;
+import main.utils.ResponseCache;
+import main.utils.SessionManager;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,7 +28,7 @@ public class AdminDAO {
             ORDER BY u.created_at DESC
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -50,7 +52,12 @@ public class AdminDAO {
             stmt.setBoolean(1, isActive);
             stmt.setInt(2, userId);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                // Сессии хранят роль и статус на момент входа - заставляем войти заново
+                SessionManager.revokeUser(userId);
+            }
+            return updated;
         }
     }
 
@@ -63,7 +70,12 @@ public class AdminDAO {
             stmt.setString(1, role);
             stmt.setInt(2, userId);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                // Сессии хранят роль и статус на момент входа - заставляем войти заново
+                SessionManager.revokeUser(userId);
+            }
+            return updated;
         }
     }
 
@@ -83,7 +95,7 @@ public class AdminDAO {
                 (SELECT COUNT(DISTINCT user_id) FROM reviews) as active_users
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -105,7 +117,7 @@ public class AdminDAO {
                 (SELECT COUNT(*) FROM movies WHERE DATE(created_at) = CURDATE()) as today_movies
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(todaySql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -153,7 +165,7 @@ public class AdminDAO {
             ORDER BY month, type
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, year);
@@ -191,7 +203,7 @@ public class AdminDAO {
             LIMIT ?
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, limit);
@@ -256,7 +268,7 @@ public class AdminDAO {
             LIMIT ?
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, limit);
@@ -291,7 +303,7 @@ public class AdminDAO {
             ORDER BY movie_count DESC, g.name
             """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -313,7 +325,12 @@ public class AdminDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, genreId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                GenreDictionary.invalidateGenres(true);
+                ResponseCache.allChanged();
+            }
+            return deleted;
         }
     }
 
@@ -326,7 +343,12 @@ public class AdminDAO {
             stmt.setString(1, name);
             stmt.setInt(2, genreId);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                GenreDictionary.invalidateGenres(false);
+                ResponseCache.allChanged();
+            }
+            return updated;
         }
     }
 
@@ -2,9 +2,16 @@ package main.dao;
 
 import main.models.Genre;
 import main.utils.DatabaseConnection;
+import main.utils.ResponseCache;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class GenreDAO {
 
@@ -12,15 +19,28 @@ public class GenreDAO {
         List<Genre> genres = new ArrayList<>();
         String sql = "SELECT * FROM genres ORDER BY name";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                Genre genre = new Genre();
-                genre.setId(rs.getInt("id"));
-                genre.setName(rs.getString("name"));
-                genres.add(genre);
+                genres.add(mapGenre(rs));
+            }
+        }
+        return genres;
+    }
+
+    // Справочник читается с основной БД: отстающая реплика не знает только что созданных жанров
+    List<Genre> loadDictionary() throws SQLException {
+        List<Genre> genres = new ArrayList<>();
+        String sql = "SELECT * FROM genres ORDER BY name";
+
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                genres.add(mapGenre(rs));
             }
         }
         return genres;
@@ -36,10 +56,7 @@ public class GenreDAO {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    Genre genre = new Genre();
-                    genre.setId(rs.getInt("id"));
-                    genre.setName(rs.getString("name"));
-                    return genre;
+                    return mapGenre(rs);
                 }
             }
         }
@@ -58,6 +75,7 @@ public class GenreDAO {
             if (affectedRows == 0) {
                 throw new SQLException("Creating genre failed, no rows affected.");
             }
+            GenreDictionary.invalidateGenres(false);
 
             try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
@@ -70,83 +88,220 @@ public class GenreDAO {
         return null;
     }
 
+    // Жанры по именам без учета регистра; недостающие создаются одним INSERT IGNORE.
+    // Порядок - как у первых вхождений имен, повторы схлопываются
+    public List<Genre> getOrCreateGenres(Collection<String> names) throws SQLException {
+        Map<String, Genre> resolved = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            String key = name.trim().toLowerCase(Locale.ROOT);
+            if (key.isEmpty() || resolved.containsKey(key)) {
+                continue;
+            }
+            Genre genre = GenreDictionary.findByName(this, name);
+            resolved.put(key, genre);
+            if (genre == null) {
+                missing.add(name.trim());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            StringBuilder sql = new StringBuilder("INSERT IGNORE INTO genres (name) VALUES ");
+            appendPlaceholders(sql, missing.size(), "(?)");
+
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+                for (int i = 0; i < missing.size(); i++) {
+                    stmt.setString(i + 1, missing.get(i));
+                }
+                stmt.executeUpdate();
+            }
+            GenreDictionary.invalidateGenres(false);
+
+            for (Map.Entry<String, Genre> entry : resolved.entrySet()) {
+                if (entry.getValue() == null) {
+                    entry.setValue(GenreDictionary.findByName(this, entry.getKey()));
+                }
+            }
+        }
+
+        List<Genre> genres = new ArrayList<>(resolved.size());
+        for (Genre genre : resolved.values()) {
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+
     public List<Genre> getMovieGenres(int movieId) throws SQLException {
+        BitSet cached = GenreDictionary.cachedMovieGenres(movieId);
+        if (cached != null) {
+            List<Genre> genres = GenreDictionary.toGenres(this, cached);
+            if (genres != null) {
+                return genres;
+            }
+        }
+
         List<Genre> genres = new ArrayList<>();
         String sql = "SELECT g.* FROM genres g " +
                 "JOIN movie_genres mg ON g.id = mg.genre_id " +
                 "WHERE mg.movie_id = ? " +
                 "ORDER BY g.name";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        // Результат кэшируется до истечения срока, поэтому читается с основной БД:
+        // набор с отстающей реплики закрепил бы на этот срок жанры, которые уже изменили
+        long stamp = GenreDictionary.stamp();
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, movieId);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Genre genre = new Genre();
-                    genre.setId(rs.getInt("id"));
-                    genre.setName(rs.getString("name"));
-                    genres.add(genre);
+                    genres.add(mapGenre(rs));
                 }
             }
         }
+        GenreDictionary.cacheMovieGenres(movieId, GenreDictionary.toBits(genres), stamp);
         return genres;
     }
 
-    public boolean addGenreToMovie(int movieId, int genreId) throws SQLException {
-        String sql = "INSERT IGNORE INTO movie_genres (movie_id, genre_id) VALUES (?, ?)";
+    // Жанры для набора фильмов: закэшированные наборы берутся из памяти, остальные - одним IN (...)
+    public Map<Integer, List<Genre>> getGenresForMovies(List<Integer> movieIds) throws SQLException {
+        Map<Integer, List<Genre>> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int movieId : movieIds) {
+            BitSet cached = GenreDictionary.cachedMovieGenres(movieId);
+            List<Genre> genres = cached != null ? GenreDictionary.toGenres(this, cached) : null;
+            if (genres != null) {
+                result.put(movieId, genres);
+            } else {
+                missing.add(movieId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        StringBuilder sql = new StringBuilder("SELECT mg.movie_id, g.* FROM genres g " +
+                "JOIN movie_genres mg ON g.id = mg.genre_id " +
+                "WHERE mg.movie_id IN (");
+        appendPlaceholders(sql, missing.size(), "?");
+        sql.append(") ORDER BY g.name");
 
-            stmt.setInt(1, movieId);
-            stmt.setInt(2, genreId);
+        for (int movieId : missing) {
+            result.put(movieId, new ArrayList<>());
+        }
+        long stamp = GenreDictionary.stamp();
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < missing.size(); i++) {
+                stmt.setInt(i + 1, missing.get(i));
+            }
 
-            return stmt.executeUpdate() > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.get(rs.getInt("movie_id")).add(mapGenre(rs));
+                }
+            }
+        }
+        for (int movieId : missing) {
+            GenreDictionary.cacheMovieGenres(movieId, GenreDictionary.toBits(result.get(movieId)), stamp);
         }
+        return result;
+    }
+
+    public boolean addGenreToMovie(int movieId, int genreId) throws SQLException {
+        return addGenresToMovie(movieId, List.of(genreId)) > 0;
     }
 
     public boolean removeGenreFromMovie(int movieId, int genreId) throws SQLException {
-        String sql = "DELETE FROM movie_genres WHERE movie_id = ? AND genre_id = ?";
+        return removeGenresFromMovie(movieId, List.of(genreId)) > 0;
+    }
+
+    // Одна вставка на все жанры; уже привязанные пропускаются. Возвращает число новых связей
+    public int addGenresToMovie(int movieId, Collection<Integer> genreIds) throws SQLException {
+        if (genreIds.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO movie_genres (movie_id, genre_id) VALUES ");
+        appendPlaceholders(sql, genreIds.size(), "(?, ?)");
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            stmt.setInt(1, movieId);
-            stmt.setInt(2, genreId);
+            int index = 1;
+            for (int genreId : genreIds) {
+                stmt.setInt(index++, movieId);
+                stmt.setInt(index++, genreId);
+            }
 
-            return stmt.executeUpdate() > 0;
+            int inserted = stmt.executeUpdate();
+            GenreDictionary.invalidateMovie(movieId);
+            ResponseCache.movieChanged(movieId);
+            return inserted;
         }
     }
 
-    public List<Genre> getGenresByNames(List<String> genreNames) throws SQLException {
-        List<Genre> genres = new ArrayList<>();
-        if (genreNames.isEmpty()) return genres;
-
-        StringBuilder sql = new StringBuilder("SELECT * FROM genres WHERE name IN (");
-        for (int i = 0; i < genreNames.size(); i++) {
-            sql.append("?");
-            if (i < genreNames.size() - 1) sql.append(", ");
+    public int removeGenresFromMovie(int movieId, Collection<Integer> genreIds) throws SQLException {
+        if (genreIds.isEmpty()) {
+            return 0;
         }
+        StringBuilder sql = new StringBuilder("DELETE FROM movie_genres WHERE movie_id = ? AND genre_id IN (");
+        appendPlaceholders(sql, genreIds.size(), "?");
         sql.append(")");
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            for (int i = 0; i < genreNames.size(); i++) {
-                stmt.setString(i + 1, genreNames.get(i));
+            stmt.setInt(1, movieId);
+            int index = 2;
+            for (int genreId : genreIds) {
+                stmt.setInt(index++, genreId);
             }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Genre genre = new Genre();
-                    genre.setId(rs.getInt("id"));
-                    genre.setName(rs.getString("name"));
-                    genres.add(genre);
-                }
+            int deleted = stmt.executeUpdate();
+            GenreDictionary.invalidateMovie(movieId);
+            ResponseCache.movieChanged(movieId);
+            return deleted;
+        }
+    }
+
+    // Поиск по справочнику в памяти, без учета регистра
+    public List<Genre> getGenresByNames(List<String> genreNames) throws SQLException {
+        List<Genre> genres = new ArrayList<>();
+        for (String name : genreNames) {
+            Genre genre = GenreDictionary.findByName(this, name);
+            if (genre != null && !genres.contains(genre)) {
+                genres.add(genre);
             }
         }
         return genres;
     }
-}
\ No newline at end of file
+
+    // Загружает справочник заранее (прогрев при запуске); возвращает число жанров
+    public int warmUp() throws SQLException {
+        return GenreDictionary.preload(this);
+    }
+
+    public static Map<String, Object> getCacheStats() {
+        return GenreDictionary.getStats();
+    }
+
+    private static Genre mapGenre(ResultSet rs) throws SQLException {
+        Genre genre = new Genre();
+        genre.setId(rs.getInt("id"));
+        genre.setName(rs.getString("name"));
+        return genre;
+    }
+
+    private static void appendPlaceholders(StringBuilder sql, int count, String group) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(group);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package main.dao;
+
+import main.config.ServerConfig;
+import main.models.Genre;
+import main.utils.UnitOfWork;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Справочник жанров в памяти (имя без учета регистра -> жанр, id -> жанр) и набор жанров
+// каждого фильма в виде битовой карты по id жанра. Сбрасывается при изменении жанров и связей.
+// Счетчик поколений не дает прочитанным до изменения данным попасть в кэш после сброса.
+// Сброс виден только этому узлу, поэтому записи живут не дольше cache.genres.ttl:
+// изменения, сделанные на других узлах, доходят сюда за это время
+class GenreDictionary {
+    private static final long TTL_MILLIS = ServerConfig.getGenreCacheTtlSeconds() * 1000;
+    private static final int MAX_MOVIES = ServerConfig.getGenreCacheMaxMovies();
+
+    private static final AtomicLong generation = new AtomicLong();
+    private static volatile Snapshot snapshot;
+
+    private static final Map<Integer, CachedGenres> movieGenres = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CachedGenres> eldest) {
+            return size() > MAX_MOVIES;
+        }
+    };
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static final class CachedGenres {
+        final BitSet bits;
+        final long expiresAt;
+
+        CachedGenres(BitSet bits, long expiresAt) {
+            this.bits = bits;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<String, Genre> byName = new HashMap<>();
+        final Map<Integer, Genre> byId = new HashMap<>();
+        // Позиция в порядке ORDER BY name базы - чтобы сортировка совпадала с SQL
+        final Map<Integer, Integer> rank = new HashMap<>();
+        final long expiresAt = System.currentTimeMillis() + TTL_MILLIS;
+
+        Snapshot(List<Genre> genres) {
+            for (int i = 0; i < genres.size(); i++) {
+                Genre genre = genres.get(i);
+                byName.put(key(genre.getName()), genre);
+                byId.put(genre.getId(), genre);
+                rank.put(genre.getId(), i);
+            }
+        }
+    }
+
+    static int preload(GenreDAO dao) throws SQLException {
+        return snapshot(dao).byId.size();
+    }
+
+    static Genre findByName(GenreDAO dao, String name) throws SQLException {
+        return snapshot(dao).byName.get(key(name));
+    }
+
+    // null - в наборе есть жанр, которого нет в справочнике (справочник устарел)
+    static List<Genre> toGenres(GenreDAO dao, BitSet bits) throws SQLException {
+        Snapshot current = snapshot(dao);
+        List<Genre> genres = new ArrayList<>(bits.cardinality());
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            Genre genre = current.byId.get(id);
+            if (genre == null) {
+                return null;
+            }
+            genres.add(genre);
+        }
+        genres.sort((a, b) -> Integer.compare(current.rank.get(a.getId()), current.rank.get(b.getId())));
+        return genres;
+    }
+
+    static BitSet toBits(List<Genre> genres) {
+        BitSet bits = new BitSet();
+        for (Genre genre : genres) {
+            bits.set(genre.getId());
+        }
+        return bits;
+    }
+
+    static BitSet cachedMovieGenres(int movieId) {
+        CachedGenres cached;
+        synchronized (movieGenres) {
+            cached = movieGenres.get(movieId);
+        }
+        BitSet bits = cached != null && cached.expiresAt > System.currentTimeMillis() ? cached.bits : null;
+        (bits != null ? hits : misses).increment();
+        return bits;
+    }
+
+    // stamp - поколение, взятое до чтения из БД. Кэшируются только данные, прочитанные с основной БД
+    static void cacheMovieGenres(int movieId, BitSet bits, long stamp) {
+        if (UnitOfWork.inTransaction()) {
+            return;
+        }
+        synchronized (movieGenres) {
+            if (generation.get() == stamp) {
+                movieGenres.put(movieId, new CachedGenres(bits, System.currentTimeMillis() + TTL_MILLIS));
+            }
+        }
+    }
+
+    static long stamp() {
+        return generation.get();
+    }
+
+    static void invalidateMovie(int movieId) {
+        Runnable reset = () -> {
+            synchronized (movieGenres) {
+                generation.incrementAndGet();
+                movieGenres.remove(movieId);
+            }
+        };
+        reset.run();
+        // После rollback или commit сбрасываем еще раз: внутри транзакции могли прочитать незафиксированное
+        UnitOfWork.afterCompletion(reset);
+    }
+
+    static void invalidateGenres(boolean links) {
+        Runnable reset = () -> {
+            synchronized (GenreDictionary.class) {
+                generation.incrementAndGet();
+                snapshot = null;
+            }
+            if (links) {
+                synchronized (movieGenres) {
+                    movieGenres.clear();
+                }
+            }
+        };
+        reset.run();
+        UnitOfWork.afterCompletion(reset);
+    }
+
+    private static Snapshot snapshot(GenreDAO dao) throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null && current.expiresAt > System.currentTimeMillis()) {
+            return current;
+        }
+        long stamp = generation.get();
+        Snapshot loaded = new Snapshot(dao.loadDictionary());
+        synchronized (GenreDictionary.class) {
+            if (!UnitOfWork.inTransaction() && generation.get() == stamp) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("genres", current != null ? current.byId.size() : 0);
+        synchronized (movieGenres) {
+            stats.put("cachedMovies", movieGenres.size());
+        }
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+}
@@ -1,12 +1,35 @@
 package main.dao;
 
 import main.models.Movie;
+import main.models.MovieSummary;
 import main.utils.DatabaseConnection;
+import main.utils.ResponseCache;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class MovieDAO {
+    // Списки читают только то, что в них показывается: описание (TEXT) остается в таблице
+    private static final String SUMMARY_COLUMNS =
+            "m.id, m.title, m.director, m.year, m.duration, m.poster_url, " +
+            "AVG(r.rating) as avg_rating, COUNT(r.id) as review_count ";
+
+    // 5 сортировок x 2 направления x с LIMIT/без - 20 неизменных текстов запроса
+    private static final SqlTemplate LIST_MOVIES = SqlTemplate.of(
+            "SELECT " + SUMMARY_COLUMNS +
+                    "FROM movies m " +
+                    "LEFT JOIN reviews r ON m.id = r.movie_id AND r.is_approved = TRUE " +
+                    "GROUP BY m.id " +
+                    "ORDER BY {sort} {order}{page}")
+            .slot("sort",
+                    "created", "m.created_at",
+                    "rating", "avg_rating",
+                    "year", "m.year",
+                    "title", "m.title",
+                    "reviews", "review_count")
+            .slot("order", "asc", "ASC", "desc", "DESC")
+            .slot("page", "all", "", "limit", " LIMIT ? OFFSET ?")
+            .build();
 
     public Movie createMovie(Movie movie) throws SQLException {
         String sql = "INSERT INTO movies (title, director, year, description, duration, poster_url) " +
@@ -33,6 +56,7 @@ public class MovieDAO {
                 }
             }
 
+            ResponseCache.movieChanged(movie.getId());
             return movie;
         }
     }
@@ -44,7 +68,7 @@ public class MovieDAO {
                 "WHERE m.id = ? " +
                 "GROUP BY m.id";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, id);
@@ -58,66 +82,85 @@ public class MovieDAO {
         return null;
     }
 
-    public List<Movie> getAllMovies(String sortBy, String order, Integer limit) throws SQLException {
-        List<Movie> movies = new ArrayList<>();
-
-        StringBuilder sql = new StringBuilder(
-                "SELECT m.*, AVG(r.rating) as avg_rating, COUNT(r.id) as review_count " +
-                        "FROM movies m " +
-                        "LEFT JOIN reviews r ON m.id = r.movie_id AND r.is_approved = TRUE " +
-                        "GROUP BY m.id "
-        );
-
-        // Добавляем сортировку
-        if (sortBy != null && !sortBy.isEmpty()) {
-            switch (sortBy.toLowerCase()) {
-                case "rating":
-                    sql.append("ORDER BY avg_rating ");
-                    break;
-                case "year":
-                    sql.append("ORDER BY m.year ");
-                    break;
-                case "title":
-                    sql.append("ORDER BY m.title ");
-                    break;
-                case "reviews":
-                    sql.append("ORDER BY review_count ");
-                    break;
-                default:
-                    sql.append("ORDER BY m.created_at ");
-            }
+    // Ключ первой страницы списка из тех же нормализованных параметров, что и запрос:
+    // разные написания одного запроса (sortBy=Rating, неизвестная сортировка) дают один ключ
+    public static String listKey(String sortBy, String order, Integer limit) {
+        return listSort(sortBy) + "\u0000" + listDirection(sortBy, order)
+                + "\u0000" + (limit != null && limit > 0 ? limit : "");
+    }
 
-            sql.append("DESC".equalsIgnoreCase(order) ? "DESC" : "ASC");
-        } else {
-            sql.append("ORDER BY m.created_at DESC");
+    // Без сортировки - сначала новые
+    private static String listSort(String sortBy) {
+        if (sortBy == null) {
+            return "created";
         }
+        switch (sortBy.toLowerCase()) {
+            case "rating":
+            case "year":
+            case "title":
+            case "reviews":
+                return sortBy.toLowerCase();
+            default:
+                return "created";
+        }
+    }
 
-        // Добавляем лимит
-        if (limit != null && limit > 0) {
-            sql.append(" LIMIT ").append(limit);
+    private static String listDirection(String sortBy, String order) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return "desc";
         }
+        return "DESC".equalsIgnoreCase(order) ? "desc" : "asc";
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql.toString());
-             ResultSet rs = stmt.executeQuery()) {
+    public List<MovieSummary> getAllMovies(String sortBy, String order, Integer limit) throws SQLException {
+        return getAllMovies(sortBy, order, limit, 0);
+    }
+
+    public List<MovieSummary> getAllMovies(String sortBy, String order, Integer limit, int offset)
+            throws SQLException {
+        List<MovieSummary> movies = new ArrayList<>();
+        boolean paged = limit != null && limit > 0;
+
+        String sql = LIST_MOVIES.sql(listSort(sortBy), listDirection(sortBy, order), paged ? "limit" : "all");
 
-            while (rs.next()) {
-                movies.add(mapResultSetToMovie(rs));
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            if (paged) {
+                stmt.setInt(1, limit);
+                stmt.setInt(2, Math.max(0, offset));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    movies.add(mapResultSetToSummary(rs));
+                }
             }
         }
         return movies;
     }
 
-    public List<Movie> searchMovies(String query) throws SQLException {
-        List<Movie> movies = new ArrayList<>();
-        String sql = "SELECT m.*, AVG(r.rating) as avg_rating " +
+    public int countMovies() throws SQLException {
+        String sql = "SELECT COUNT(*) as count FROM movies";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getInt("count") : 0;
+        }
+    }
+
+    public List<MovieSummary> searchMovies(String query) throws SQLException {
+        List<MovieSummary> movies = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS +
                 "FROM movies m " +
                 "LEFT JOIN reviews r ON m.id = r.movie_id AND r.is_approved = TRUE " +
                 "WHERE m.title LIKE ? OR m.director LIKE ? OR m.description LIKE ? " +
                 "GROUP BY m.id " +
                 "ORDER BY m.title";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             String searchPattern = "%" + query + "%";
@@ -127,7 +170,7 @@ public class MovieDAO {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    movies.add(mapResultSetToMovie(rs));
+                    movies.add(mapResultSetToSummary(rs));
                 }
             }
         }
@@ -149,7 +192,11 @@ public class MovieDAO {
             stmt.setString(6, movie.getPosterUrl());
             stmt.setInt(7, movie.getId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResponseCache.movieChanged(movie.getId());
+            }
+            return updated;
         }
     }
 
@@ -160,20 +207,25 @@ public class MovieDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, movieId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                GenreDictionary.invalidateMovie(movieId);
+                ResponseCache.movieChanged(movieId);
+            }
+            return deleted;
         }
     }
 
-    public List<Movie> getMoviesByYearRange(int fromYear, int toYear) throws SQLException {
-        List<Movie> movies = new ArrayList<>();
-        String sql = "SELECT m.*, AVG(r.rating) as avg_rating " +
+    public List<MovieSummary> getMoviesByYearRange(int fromYear, int toYear) throws SQLException {
+        List<MovieSummary> movies = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS +
                 "FROM movies m " +
                 "LEFT JOIN reviews r ON m.id = r.movie_id AND r.is_approved = TRUE " +
                 "WHERE m.year BETWEEN ? AND ? " +
                 "GROUP BY m.id " +
                 "ORDER BY m.year DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, fromYear);
@@ -181,16 +233,16 @@ public class MovieDAO {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    movies.add(mapResultSetToMovie(rs));
+                    movies.add(mapResultSetToSummary(rs));
                 }
             }
         }
         return movies;
     }
 
-    public List<Movie> getTopRatedMovies(int limit) throws SQLException {
-        List<Movie> movies = new ArrayList<>();
-        String sql = "SELECT m.*, AVG(r.rating) as avg_rating " +
+    public List<MovieSummary> getTopRatedMovies(int limit) throws SQLException {
+        List<MovieSummary> movies = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS +
                 "FROM movies m " +
                 "LEFT JOIN reviews r ON m.id = r.movie_id AND r.is_approved = TRUE " +
                 "GROUP BY m.id " +
@@ -198,21 +250,21 @@ public class MovieDAO {
                 "ORDER BY avg_rating DESC " +
                 "LIMIT ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, limit);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    movies.add(mapResultSetToMovie(rs));
+                    movies.add(mapResultSetToSummary(rs));
                 }
             }
         }
         return movies;
     }
 
-    private Movie mapResultSetToMovie(ResultSet rs) throws SQLException {
+    Movie mapResultSetToMovie(ResultSet rs) throws SQLException {
         Movie movie = new Movie();
         movie.setId(rs.getInt("id"));
         movie.setTitle(rs.getString("title"));
@@ -229,4 +281,22 @@ public class MovieDAO {
 
         return movie;
     }
+
+    MovieSummary mapResultSetToSummary(ResultSet rs) throws SQLException {
+        MovieSummary movie = new MovieSummary();
+        movie.setId(rs.getInt("id"));
+        movie.setTitle(rs.getString("title"));
+        movie.setDirector(rs.getString("director"));
+        movie.setYear(rs.getInt("year"));
+        movie.setDuration(rs.getInt("duration"));
+        movie.setPosterUrl(rs.getString("poster_url"));
+        movie.setReviewCount(rs.getInt("review_count"));
+
+        double avgRating = rs.getDouble("avg_rating");
+        if (!rs.wasNull()) {
+            movie.setAverageRating(Math.round(avgRating * 10.0) / 10.0);
+        }
+
+        return movie;
+    }
 }
\ No newline at end of file
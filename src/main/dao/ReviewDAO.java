@@ -1,12 +1,53 @@
 package main.dao;
 
 import main.models.Review;
+import main.models.ReviewSummary;
 import main.utils.DatabaseConnection;
+import main.utils.ResponseCache;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ReviewDAO {
+    // Сколько символов комментария отдают списки модерации
+    public static final int COMMENT_PREVIEW_LENGTH = 100;
+
+    private static final SqlTemplate MOVIE_REVIEWS = SqlTemplate.of(
+            "SELECT r.*, u.username FROM reviews r " +
+                    "JOIN users u ON r.user_id = u.id " +
+                    "WHERE r.movie_id = ? {filter}" +
+                    "ORDER BY r.created_at DESC")
+            .slot("filter", "all", "", "approved", "AND r.is_approved = TRUE ")
+            .build();
+
+    private static final SqlTemplate ALL_REVIEWS = SqlTemplate.of(
+            "SELECT r.*, u.username, m.title as movie_title FROM reviews r " +
+                    "JOIN users u ON r.user_id = u.id " +
+                    "JOIN movies m ON r.movie_id = m.id " +
+                    "{filter}ORDER BY r.created_at DESC")
+            .slot("filter", "all", "", "pending", "WHERE r.is_approved = FALSE ")
+            .build();
+
+    private static final SqlTemplate REVIEW_SUMMARIES = SqlTemplate.of(
+            "SELECT r.id, r.movie_id, r.user_id, r.rating, r.created_at, r.is_approved, " +
+                    "LEFT(r.comment, " + COMMENT_PREVIEW_LENGTH + ") as comment_preview, " +
+                    "CHAR_LENGTH(r.comment) > " + COMMENT_PREVIEW_LENGTH + " as comment_truncated, " +
+                    "u.username, m.title as movie_title FROM reviews r " +
+                    "JOIN users u ON r.user_id = u.id " +
+                    "JOIN movies m ON r.movie_id = m.id " +
+                    "{filter}ORDER BY r.created_at DESC")
+            .slot("filter", "all", "", "pending", "WHERE r.is_approved = FALSE ")
+            .build();
+
+    private static final SqlTemplate COUNT_REVIEWS = SqlTemplate.of(
+            "SELECT COUNT(*) as count FROM reviews r " +
+                    "JOIN users u ON r.user_id = u.id " +
+                    "JOIN movies m ON r.movie_id = m.id " +
+                    "{filter}")
+            .slot("filter", "all", "", "pending", "WHERE r.is_approved = FALSE")
+            .build();
 
     public Review createReview(Review review) throws SQLException {
         String sql = "INSERT INTO reviews (movie_id, user_id, rating, comment) VALUES (?, ?, ?, ?)";
@@ -30,6 +71,7 @@ public class ReviewDAO {
                 }
             }
 
+            ResponseCache.movieChanged(review.getMovieId());
             return review;
         }
     }
@@ -75,17 +117,9 @@ public class ReviewDAO {
 
     public List<Review> getMovieReviews(int movieId, boolean includeUnapproved) throws SQLException {
         List<Review> reviews = new ArrayList<>();
-        String sql = "SELECT r.*, u.username FROM reviews r " +
-                "JOIN users u ON r.user_id = u.id " +
-                "WHERE r.movie_id = ? ";
-
-        if (!includeUnapproved) {
-            sql += "AND r.is_approved = TRUE ";
-        }
-
-        sql += "ORDER BY r.created_at DESC";
+        String sql = MOVIE_REVIEWS.sql(includeUnapproved ? "all" : "approved");
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, movieId);
@@ -106,7 +140,7 @@ public class ReviewDAO {
                 "WHERE r.user_id = ? " +
                 "ORDER BY r.created_at DESC";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
@@ -122,27 +156,57 @@ public class ReviewDAO {
 
     public List<Review> getAllReviews(boolean onlyUnapproved) throws SQLException {
         List<Review> reviews = new ArrayList<>();
-        String sql = "SELECT r.*, u.username, m.title as movie_title FROM reviews r " +
-                "JOIN users u ON r.user_id = u.id " +
-                "JOIN movies m ON r.movie_id = m.id ";
+        String sql = ALL_REVIEWS.sql(onlyUnapproved ? "pending" : "all");
 
-        if (onlyUnapproved) {
-            sql += "WHERE r.is_approved = FALSE ";
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                reviews.add(mapResultSetToReview(rs));
+            }
         }
+        return reviews;
+    }
 
-        sql += "ORDER BY r.created_at DESC";
+    // То же, что getAllReviews, но вместо полного комментария - его начало
+    public List<ReviewSummary> getReviewSummaries(boolean onlyUnapproved) throws SQLException {
+        List<ReviewSummary> reviews = new ArrayList<>();
+        String sql = REVIEW_SUMMARIES.sql(onlyUnapproved ? "pending" : "all");
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
-                reviews.add(mapResultSetToReview(rs));
+                ReviewSummary review = new ReviewSummary();
+                review.setId(rs.getInt("id"));
+                review.setMovieId(rs.getInt("movie_id"));
+                review.setUserId(rs.getInt("user_id"));
+                review.setUsername(rs.getString("username"));
+                review.setMovieTitle(rs.getString("movie_title"));
+                review.setRating(rs.getInt("rating"));
+                review.setCommentPreview(rs.getString("comment_preview"));
+                review.setCommentTruncated(rs.getBoolean("comment_truncated"));
+                review.setCreatedAt(rs.getTimestamp("created_at"));
+                review.setApproved(rs.getBoolean("is_approved"));
+                reviews.add(review);
             }
         }
         return reviews;
     }
 
+    public int countReviews(boolean onlyUnapproved) throws SQLException {
+        String sql = COUNT_REVIEWS.sql(onlyUnapproved ? "pending" : "all");
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getInt("count") : 0;
+        }
+    }
+
     public boolean updateReview(Review review) throws SQLException {
         String sql = "UPDATE reviews SET rating = ?, comment = ?, is_approved = ? WHERE id = ?";
 
@@ -154,7 +218,11 @@ public class ReviewDAO {
             stmt.setBoolean(3, review.isApproved());
             stmt.setInt(4, review.getId());
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                reviewChanged(review.getMovieId());
+            }
+            return updated;
         }
     }
 
@@ -164,8 +232,13 @@ public class ReviewDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            int movieId = movieIdOf(conn, reviewId);
             stmt.setInt(1, reviewId);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                reviewChanged(movieId);
+            }
+            return deleted;
         }
     }
 
@@ -175,8 +248,13 @@ public class ReviewDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            int movieId = movieIdOf(conn, reviewId);
             stmt.setInt(1, reviewId);
-            return stmt.executeUpdate() > 0;
+            boolean approved = stmt.executeUpdate() > 0;
+            if (approved) {
+                reviewChanged(movieId);
+            }
+            return approved;
         }
     }
 
@@ -186,8 +264,33 @@ public class ReviewDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
+            int movieId = movieIdOf(conn, reviewId);
             stmt.setInt(1, reviewId);
-            return stmt.executeUpdate() > 0;
+            boolean rejected = stmt.executeUpdate() > 0;
+            if (rejected) {
+                reviewChanged(movieId);
+            }
+            return rejected;
+        }
+    }
+
+    // Фильм отзыва для сброса кэша ответов. Отзыв не переходит между фильмами,
+    // поэтому его можно прочитать на том же соединении до изменения
+    private static int movieIdOf(Connection conn, int reviewId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT movie_id FROM reviews WHERE id = ?")) {
+            stmt.setInt(1, reviewId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("movie_id") : 0;
+            }
+        }
+    }
+
+    // Фильм неизвестен (0) - тогда устаревают все страницы
+    private static void reviewChanged(int movieId) {
+        if (movieId > 0) {
+            ResponseCache.movieChanged(movieId);
+        } else {
+            ResponseCache.allChanged();
         }
     }
 
@@ -195,7 +298,7 @@ public class ReviewDAO {
         String sql = "SELECT AVG(rating) as avg_rating FROM reviews " +
                 "WHERE movie_id = ? AND is_approved = TRUE";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, movieId);
@@ -213,7 +316,7 @@ public class ReviewDAO {
         String sql = "SELECT COUNT(*) as count FROM reviews " +
                 "WHERE movie_id = ? AND is_approved = TRUE";
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, movieId);
@@ -227,6 +330,44 @@ public class ReviewDAO {
         return 0;
     }
 
+    // Сводка по отзывам набора пользователей (все отзывы, как в getUserReviews)
+    public Map<Integer, UserReviewSummary> getUserReviewSummaries(List<Integer> userIds) throws SQLException {
+        Map<Integer, UserReviewSummary> summaries = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return summaries;
+        }
+        String sql = "SELECT user_id, COUNT(*) as count, MAX(created_at) as last_review FROM reviews " +
+                "WHERE user_id IN (" + placeholders(userIds.size()) + ") " +
+                "GROUP BY user_id";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < userIds.size(); i++) {
+                stmt.setInt(i + 1, userIds.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UserReviewSummary summary = new UserReviewSummary();
+                    summary.setReviewCount(rs.getInt("count"));
+                    summary.setLastReviewDate(rs.getTimestamp("last_review"));
+                    summaries.put(rs.getInt("user_id"), summary);
+                }
+            }
+        }
+        return summaries;
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("?");
+        }
+        return sql.toString();
+    }
+
     private Review mapResultSetToReview(ResultSet rs) throws SQLException {
         Review review = new Review();
         review.setId(rs.getInt("id"));
@@ -252,4 +393,15 @@ public class ReviewDAO {
 
         return review;
     }
+
+    public static class UserReviewSummary {
+        private int reviewCount;
+        private Timestamp lastReviewDate;
+
+        public int getReviewCount() { return reviewCount; }
+        public void setReviewCount(int reviewCount) { this.reviewCount = reviewCount; }
+
+        public Timestamp getLastReviewDate() { return lastReviewDate; }
+        public void setLastReviewDate(Timestamp lastReviewDate) { this.lastReviewDate = lastReviewDate; }
+    }
 }
\ No newline at end of file
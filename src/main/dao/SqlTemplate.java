@@ -0,0 +1,83 @@
+package main.dao;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Запрос с конечным набором вариантов: сортировка, направление, фильтр, наличие LIMIT.
+// Все варианты собираются один раз при загрузке класса, поэтому текст каждого варианта
+// всегда один и тот же и переиспользуется кэшем подготовленных запросов пула.
+// Значения (LIMIT, OFFSET, фильтры) только привязываются как параметры, в текст не попадают
+final class SqlTemplate {
+    private final String[] slots;
+    private final Map<String, String> variants = new HashMap<>();
+
+    // Слоты в тексте записываются как {name}; порядок choices задает порядок аргументов sql()
+    SqlTemplate(String text, Map<String, Map<String, String>> choices) {
+        this.slots = choices.keySet().toArray(new String[0]);
+        expand(text, choices, 0, new String[slots.length]);
+    }
+
+    static Builder of(String text) {
+        return new Builder(text);
+    }
+
+    // Текст варианта по ключам выбора для каждого слота, в порядке объявления
+    String sql(String... keys) {
+        if (keys.length != slots.length) {
+            throw new IllegalArgumentException("Expected " + slots.length + " SQL template keys, got " + keys.length);
+        }
+        String sql = variants.get(String.join("\u0000", keys));
+        if (sql == null) {
+            throw new IllegalArgumentException("Unknown SQL template variant: " + Arrays.toString(keys));
+        }
+        return sql;
+    }
+
+    int size() {
+        return variants.size();
+    }
+
+    private void expand(String text, Map<String, Map<String, String>> choices, int slot, String[] keys) {
+        if (slot == slots.length) {
+            variants.put(String.join("\u0000", keys), text);
+            return;
+        }
+        for (Map.Entry<String, String> choice : choices.get(slots[slot]).entrySet()) {
+            keys[slot] = choice.getKey();
+            expand(text.replace("{" + slots[slot] + "}", choice.getValue()), choices, slot + 1, keys);
+        }
+    }
+
+    static final class Builder {
+        private final String text;
+        private final Map<String, Map<String, String>> choices = new LinkedHashMap<>();
+
+        private Builder(String text) {
+            this.text = text;
+        }
+
+        // Пары ключ, фрагмент SQL: slot("order", "asc", "ASC", "desc", "DESC")
+        Builder slot(String name, String... keysAndFragments) {
+            if (keysAndFragments.length % 2 != 0) {
+                throw new IllegalArgumentException("Slot " + name + " needs key/fragment pairs");
+            }
+            Map<String, String> fragments = new LinkedHashMap<>();
+            for (int i = 0; i < keysAndFragments.length; i += 2) {
+                fragments.put(keysAndFragments[i], keysAndFragments[i + 1]);
+            }
+            choices.put(name, fragments);
+            return this;
+        }
+
+        SqlTemplate build() {
+            for (String name : choices.keySet()) {
+                if (!text.contains("{" + name + "}")) {
+                    throw new IllegalArgumentException("SQL template has no slot {" + name + "}");
+                }
+            }
+            return new SqlTemplate(text, choices);
+        }
+    }
+}
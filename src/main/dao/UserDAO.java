@@ -2,11 +2,28 @@ package main.dao;
 
 import main.models.User;
 import main.utils.DatabaseConnection;
+import main.utils.ResponseCache;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UserDAO {
+    private static final String[] USER_FILTERS = {
+            "all", "",
+            "active", "WHERE is_active = TRUE ",
+            "inactive", "WHERE is_active = FALSE ",
+            "admins", "WHERE role = 'ADMIN' "};
+
+    // Страница списка админки: фильтр и пагинация в БД, по индексу idx_users_created_at
+    private static final SqlTemplate LIST_USERS = SqlTemplate.of(
+            "SELECT * FROM users {filter}ORDER BY created_at DESC LIMIT ? OFFSET ?")
+            .slot("filter", USER_FILTERS)
+            .build();
+
+    private static final SqlTemplate COUNT_USERS = SqlTemplate.of(
+            "SELECT COUNT(*) as count FROM users {filter}")
+            .slot("filter", USER_FILTERS)
+            .build();
 
     public User createUser(User user) throws SQLException {
         String sql = "INSERT INTO users (username, email, password_hash, role) VALUES (?, ?, ?, ?)";
@@ -113,6 +130,48 @@ public class UserDAO {
         return users;
     }
 
+    // filter: all, active, inactive, admins; неизвестный - все пользователи
+    public List<User> getUsers(String filter, int limit, int offset) throws SQLException {
+        List<User> users = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(LIST_USERS.sql(userFilter(filter)))) {
+
+            stmt.setInt(1, limit);
+            stmt.setInt(2, Math.max(0, offset));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapResultSetToUser(rs));
+                }
+            }
+        }
+        return users;
+    }
+
+    public int countUsers(String filter) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_USERS.sql(userFilter(filter)));
+             ResultSet rs = stmt.executeQuery()) {
+
+            return rs.next() ? rs.getInt("count") : 0;
+        }
+    }
+
+    private static String userFilter(String filter) {
+        if (filter == null) {
+            return "all";
+        }
+        switch (filter) {
+            case "active":
+            case "inactive":
+            case "admins":
+                return filter;
+            default:
+                return "all";
+        }
+    }
+
     public boolean updateUser(User user) throws SQLException {
         String sql = "UPDATE users SET username = ?, email = ?, role = ?, is_active = ? WHERE id = ?";
 
@@ -125,6 +184,24 @@ public class UserDAO {
             stmt.setBoolean(4, user.isActive());
             stmt.setInt(5, user.getId());
 
+            // Имя пользователя показывается в отзывах на страницах фильмов
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                ResponseCache.allChanged();
+            }
+            return updated;
+        }
+    }
+
+    public boolean updatePasswordHash(int userId, String passwordHash) throws SQLException {
+        String sql = "UPDATE users SET password_hash = ? WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, passwordHash);
+            stmt.setInt(2, userId);
+
             return stmt.executeUpdate() > 0;
         }
     }
@@ -136,7 +213,12 @@ public class UserDAO {
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, userId);
-            return stmt.executeUpdate() > 0;
+            // Отзывы пользователя удаляются каскадом
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                ResponseCache.allChanged();
+            }
+            return deleted;
         }
     }
 
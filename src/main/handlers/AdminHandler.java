@@ -104,6 +104,9 @@ public class AdminHandler extends BaseHandler {
             case "system":
                 handleGetSystemInfo(exchange);
                 break;
+            case "queries":
+                handleGetQueryStats(exchange);
+                break;
             case "backup":
                 handleCreateBackup(exchange);
                 break;
@@ -243,8 +246,7 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleGetStats(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String yearStr = params.get("year");
+        String yearStr = getQueryParameter(exchange, "year");
 
         int year = yearStr != null ? Integer.parseInt(yearStr) : java.time.Year.now().getValue();
         var monthlyStats = adminService.getMonthlyStats(year);
@@ -256,10 +258,9 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleGetUsers(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String pageStr = params.get("page");
-        String limitStr = params.get("limit");
-        String filter = params.get("filter");
+        String pageStr = getQueryParameter(exchange, "page");
+        String limitStr = getQueryParameter(exchange, "limit");
+        String filter = getQueryParameter(exchange, "filter");
 
         int page = pageStr != null ? Integer.parseInt(pageStr) : 1;
         int limit = limitStr != null ? Integer.parseInt(limitStr) : 20;
@@ -279,8 +280,7 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleSearchUsers(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String query = params.get("q");
+        String query = getQueryParameter(exchange, "q");
 
         if (query == null || query.trim().isEmpty()) {
             sendError(exchange, 400, "Search query required");
@@ -292,11 +292,10 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleGetAdminMovies(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String pageStr = params.get("page");
-        String limitStr = params.get("limit");
-        String sortBy = params.get("sortBy");
-        String order = params.get("order");
+        String pageStr = getQueryParameter(exchange, "page");
+        String limitStr = getQueryParameter(exchange, "limit");
+        String sortBy = getQueryParameter(exchange, "sortBy");
+        String order = getQueryParameter(exchange, "order");
 
         int page = pageStr != null ? Integer.parseInt(pageStr) : 1;
         int limit = limitStr != null ? Integer.parseInt(limitStr) : 20;
@@ -316,8 +315,7 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleSearchAdminMovies(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String query = params.get("q");
+        String query = getQueryParameter(exchange, "q");
 
         if (query == null || query.trim().isEmpty()) {
             sendError(exchange, 400, "Search query required");
@@ -329,10 +327,9 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleGetAllReviews(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String pageStr = params.get("page");
-        String limitStr = params.get("limit");
-        String filter = params.get("filter");
+        String pageStr = getQueryParameter(exchange, "page");
+        String limitStr = getQueryParameter(exchange, "limit");
+        String filter = getQueryParameter(exchange, "filter");
 
         int page = pageStr != null ? Integer.parseInt(pageStr) : 1;
         int limit = limitStr != null ? Integer.parseInt(limitStr) : 20;
@@ -367,8 +364,7 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleGetRecentActivity(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String limitStr = params.get("limit");
+        String limitStr = getQueryParameter(exchange, "limit");
 
         int limit = limitStr != null ? Integer.parseInt(limitStr) : 20;
         var activity = adminService.getRecentActivity(limit);
@@ -381,6 +377,18 @@ public class AdminHandler extends BaseHandler {
         sendSuccess(exchange, info);
     }
 
+    private void handleGetQueryStats(HttpExchange exchange) throws IOException {
+        String limitStr = getQueryParameter(exchange, "limit");
+
+        int limit = limitStr != null ? Integer.parseInt(limitStr) : 50;
+        var queries = adminService.getQueryStats(limit);
+
+        sendSuccess(exchange, Map.of(
+                "histogramBoundsMs", adminService.getQueryHistogramBounds(),
+                "queries", queries
+        ));
+    }
+
     private void handleCreateMovie(HttpExchange exchange) throws IOException, SQLException {
         JsonNode json = parseRequestBody(exchange, JsonNode.class);
 
@@ -553,8 +561,7 @@ public class AdminHandler extends BaseHandler {
     }
 
     private void handleCreateBackup(HttpExchange exchange) throws IOException, SQLException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String backupPath = params.get("path");
+        String backupPath = getQueryParameter(exchange, "path");
 
         if (backupPath == null || backupPath.trim().isEmpty()) {
             backupPath = "backups";
@@ -1,14 +1,17 @@
 package main.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import main.models.User;
 import main.services.AuthService;
 import main.utils.CookieManager;
 import main.utils.JsonResponse;
+import main.utils.PasswordHasher;
 import main.utils.SessionManager;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 public class AuthHandler extends BaseHandler {
     private final AuthService authService = new AuthService();
@@ -56,11 +59,11 @@ public class AuthHandler extends BaseHandler {
         String password = json.get("password").asText();
 
         try {
-            var user = authService.register(username, email, password);
+            User user = authService.register(username, email, password);
 
             // Автоматический логин после регистрации
             String sessionId = SessionManager.createSession(user.getId(), user.getRole());
-            CookieManager.setCookie(exchange, "sessionId", sessionId, 24 * 60 * 60);
+            CookieManager.setCookie(exchange, "sessionId", sessionId, SessionManager.getSessionMaxAgeSeconds());
 
             Map<String, Object> responseData = Map.of(
                     "user", Map.of(
@@ -75,6 +78,10 @@ public class AuthHandler extends BaseHandler {
             sendSuccess(exchange, responseData);
         } catch (IllegalArgumentException e) {
             sendError(exchange, 400, e.getMessage());
+        } catch (PasswordHasher.OverloadedException e) {
+            sendBusy(exchange);
+        } catch (TimeoutException e) {
+            sendError(exchange, 504, "Request timed out");
         } catch (SQLException e) {
             sendError(exchange, 500, "Database error");
         }
@@ -87,7 +94,7 @@ public class AuthHandler extends BaseHandler {
         String password = json.get("password").asText();
 
         try {
-            var user = authService.login(email, password);
+            User user = authService.login(email, password);
 
             if (user == null) {
                 sendError(exchange, 401, "Invalid email or password");
@@ -95,7 +102,7 @@ public class AuthHandler extends BaseHandler {
             }
 
             String sessionId = SessionManager.createSession(user.getId(), user.getRole());
-            CookieManager.setCookie(exchange, "sessionId", sessionId, 24 * 60 * 60);
+            CookieManager.setCookie(exchange, "sessionId", sessionId, SessionManager.getSessionMaxAgeSeconds());
 
             Map<String, Object> responseData = Map.of(
                     "user", Map.of(
@@ -108,6 +115,10 @@ public class AuthHandler extends BaseHandler {
             );
 
             sendSuccess(exchange, responseData);
+        } catch (PasswordHasher.OverloadedException e) {
+            sendBusy(exchange);
+        } catch (TimeoutException e) {
+            sendError(exchange, 504, "Request timed out");
         } catch (SQLException e) {
             sendError(exchange, 500, "Database error");
         }
@@ -151,4 +162,4 @@ public class AuthHandler extends BaseHandler {
             sendError(exchange, 500, "Database error");
         }
     }
-}
\ No newline at end of file
+}
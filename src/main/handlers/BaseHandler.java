@@ -3,30 +3,74 @@ package main.handlers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import main.utils.CookieManager;
 import main.utils.JsonResponse;
+import main.utils.QueryString;
+import main.utils.RequestDeadline;
+import main.utils.ResponseCache;
+import main.utils.ScopedExchange;
 import main.utils.SessionManager;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.sql.SQLException;
 
 public abstract class BaseHandler implements HttpHandler {
     protected final ObjectMapper mapper = new ObjectMapper();
 
-    protected boolean isAuthenticated(HttpExchange exchange) {
+    private static final String PRINCIPAL_ATTRIBUTE = "session.principal";
+    private static final String CACHE_CONTROL = ResponseCache.maxAgeSeconds() > 0
+            ? "public, max-age=" + ResponseCache.maxAgeSeconds()
+            : "public, no-cache";
+    private static final Object ANONYMOUS = new Object();
+
+    protected SessionManager.Principal getPrincipal(HttpExchange exchange) {
+        return principalOf(exchange);
+    }
+
+    // Сессия разрешается один раз на запрос; результат (в том числе ее отсутствие) лежит в атрибутах.
+    // Доступно фильтрам пакета, чтобы они не разрешали сессию повторно
+    static SessionManager.Principal principalOf(HttpExchange exchange) {
+        // Без ScopedExchange атрибуты общие для всего контекста, кэшировать в них нельзя
+        if (!(exchange instanceof ScopedExchange)) {
+            return resolvePrincipal(exchange);
+        }
+
+        Object cached = exchange.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (cached == null) {
+            SessionManager.Principal principal = resolvePrincipal(exchange);
+            exchange.setAttribute(PRINCIPAL_ATTRIBUTE, principal != null ? principal : ANONYMOUS);
+            return principal;
+        }
+        return cached instanceof SessionManager.Principal ? (SessionManager.Principal) cached : null;
+    }
+
+    private static SessionManager.Principal resolvePrincipal(HttpExchange exchange) {
         String sessionId = CookieManager.getCookie(exchange, "sessionId");
-        return sessionId != null && SessionManager.getUserId(sessionId) != null;
+        if (sessionId == null) {
+            return null;
+        }
+        SessionManager.Principal principal = SessionManager.resolve(sessionId);
+        // Подписанный токен продлевается выдачей нового cookie
+        String renewed = principal != null ? SessionManager.renew(principal) : null;
+        if (renewed != null) {
+            CookieManager.setCookie(exchange, "sessionId", renewed, SessionManager.getSessionMaxAgeSeconds());
+        }
+        return principal;
+    }
+
+    protected boolean isAuthenticated(HttpExchange exchange) {
+        return getPrincipal(exchange) != null;
     }
 
     protected Integer getCurrentUserId(HttpExchange exchange) {
-        String sessionId = CookieManager.getCookie(exchange, "sessionId");
-        return sessionId != null ? SessionManager.getUserId(sessionId) : null;
+        SessionManager.Principal principal = getPrincipal(exchange);
+        return principal != null ? principal.getUserId() : null;
     }
 
     protected String getCurrentUserRole(HttpExchange exchange) {
-        String sessionId = CookieManager.getCookie(exchange, "sessionId");
-        return sessionId != null ? SessionManager.getUserRole(sessionId) : null;
+        SessionManager.Principal principal = getPrincipal(exchange);
+        return principal != null ? principal.getRole() : null;
     }
 
     protected boolean isAdmin(HttpExchange exchange) {
@@ -36,6 +80,11 @@ public abstract class BaseHandler implements HttpHandler {
 
     protected void sendResponse(HttpExchange exchange, int statusCode, String response)
             throws IOException {
+        writeResponse(exchange, statusCode, response);
+    }
+
+    static void writeResponse(HttpExchange exchange, int statusCode, String response)
+            throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         exchange.sendResponseHeaders(statusCode, response.getBytes(StandardCharsets.UTF_8).length);
@@ -47,10 +96,21 @@ public abstract class BaseHandler implements HttpHandler {
 
     protected void sendError(HttpExchange exchange, int statusCode, String message)
             throws IOException {
+        // Ошибка БД после истечения срока запроса - это таймаут, а не сбой сервера
+        if (statusCode == 500 && RequestDeadline.isTimedOut()) {
+            statusCode = 504;
+            message = "Request timed out";
+        }
         String response = JsonResponse.error(message);
         sendResponse(exchange, statusCode, response);
     }
 
+    // Перегрузка (предел конкурентности, пул хэширования): клиенту стоит повторить через секунду
+    protected void sendBusy(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Server is busy, try again later");
+    }
+
     protected void sendSuccess(HttpExchange exchange, Object data) throws IOException {
         String response = JsonResponse.success(data);
         sendResponse(exchange, 200, response);
@@ -61,14 +121,73 @@ public abstract class BaseHandler implements HttpHandler {
         sendResponse(exchange, 200, response);
     }
 
-    protected Map<String, String> parseQuery(String query) {
-        return java.util.stream.Stream.of(query.split("&"))
-                .map(param -> param.split("=", 2))
-                .collect(java.util.stream.Collectors.toMap(
-                        parts -> parts[0],
-                        parts -> parts.length > 1 ? parts[1] : "",
-                        (v1, v2) -> v1
-                ));
+    // Данные ответа для кэша; null - ресурса нет
+    protected interface CachedLoader {
+        Object load() throws SQLException;
+    }
+
+    // Публичный GET через кэш ответов: 304 по If-None-Match, иначе готовые (при возможности сжатые) байты.
+    // key - маршрут и нормализованные параметры. false - loader вернул null, ответ не отправлен
+    protected boolean sendCachedSuccess(HttpExchange exchange, String key, ResponseCache.Tag tag,
+                                        CachedLoader loader) throws IOException, SQLException {
+        if (tag.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            ResponseCache.notModified();
+            setCacheHeaders(exchange, tag, false);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return true;
+        }
+
+        ResponseCache.Entry entry = ResponseCache.get(key, tag);
+        if (entry == null) {
+            // Только промах идет в БД и занимает место под пределом конкурентности
+            if (!LoadSheddingFilter.admitCacheMiss()) {
+                sendBusy(exchange);
+                return true;
+            }
+            Object data = loader.load();
+            if (data == null) {
+                return false;
+            }
+            entry = ResponseCache.put(key, tag, JsonResponse.success(data));
+        }
+
+        byte[] gzipped = acceptsGzip(exchange) ? entry.getGzipped() : null;
+        boolean gzip = gzipped != null;
+        byte[] body = gzip ? gzipped : entry.getBody();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        setCacheHeaders(exchange, tag, gzip);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        return true;
+    }
+
+    private static void setCacheHeaders(HttpExchange exchange, ResponseCache.Tag tag, boolean gzip) {
+        var headers = exchange.getResponseHeaders();
+        headers.set("Vary", "Accept-Encoding");
+        if (!tag.isCacheable()) {
+            headers.set("Cache-Control", "no-cache");
+            return;
+        }
+        headers.set("ETag", tag.etag(gzip));
+        // Обновленный cookie сессии не должен попасть в общий кэш CDN
+        headers.set("Cache-Control", headers.containsKey("Set-Cookie") ? "private, no-cache" : CACHE_CONTROL);
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accept != null && accept.contains("gzip");
+    }
+
+    // Один параметр строки запроса без построения карты; null - параметра нет
+    protected String getQueryParameter(HttpExchange exchange, String name) {
+        return QueryString.get(exchange.getRequestURI().getRawQuery(), name);
     }
 
     protected String getPathParameter(HttpExchange exchange, int index) {
@@ -0,0 +1,51 @@
+package main.handlers;
+
+import main.utils.Bulkhead;
+import main.utils.JsonResponse;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+// Переносит обработку запроса на потоки его отсека; поток сервера сразу освобождается
+public class BulkheadFilter extends Filter {
+    private final Bulkhead bulkhead;
+
+    // Весь контекст в одном отсеке
+    public BulkheadFilter(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    // Чтение и запись контекста разделены по методу
+    public BulkheadFilter() {
+        this(null);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        Bulkhead target = bulkhead != null ? bulkhead : byMethod(exchange.getRequestMethod());
+        try {
+            target.execute(() -> {
+                try {
+                    chain.doFilter(exchange);
+                } catch (IOException | RuntimeException e) {
+                    exchange.close();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            BaseHandler.writeResponse(exchange, 503, JsonResponse.error("Server is busy, try again later"));
+        }
+    }
+
+    static Bulkhead byMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                ? Bulkhead.READ
+                : Bulkhead.WRITE;
+    }
+
+    @Override
+    public String description() {
+        return "Bulkhead dispatch";
+    }
+}
@@ -0,0 +1,34 @@
+package main.handlers;
+
+import main.config.ServerConfig;
+import main.utils.RequestDeadline;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// Срок выполнения запроса по классу маршрута (request.timeout.*); запросы к БД его наследуют
+public class DeadlineFilter extends Filter {
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String route = routeOf(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        RequestDeadline deadline = RequestDeadline.start(route, ServerConfig.getRequestTimeoutMillis(route));
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            deadline.finish();
+        }
+    }
+
+    static String routeOf(String method, String path) {
+        if (path.startsWith("/api/admin")) {
+            return "admin";
+        }
+        return RateLimitFilter.classify(method, path).name().toLowerCase();
+    }
+
+    @Override
+    public String description() {
+        return "Per-route request deadline";
+    }
+}
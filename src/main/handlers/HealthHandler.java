@@ -0,0 +1,48 @@
+package main.handlers;
+
+import main.utils.HealthMonitor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Проверки для балансировщика. /health/live - процесс жив и принимает соединения,
+// /health/ready - последний результат HealthMonitor: запуск, БД, отсеки, очереди.
+// Идут мимо фильтров API: ни сессии, ни БД, ни отсеков; тело ответа готово заранее
+public class HealthHandler implements HttpHandler {
+    private static final byte[] LIVE = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/health/live")) {
+            write(exchange, 200, LIVE);
+        } else if (path.equals("/health/ready")) {
+            HealthMonitor.Snapshot snapshot = HealthMonitor.current();
+            write(exchange, snapshot.getHttpStatus(), snapshot.getBody());
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        }
+    }
+
+    private static void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (!head) {
+                os.write(body);
+            }
+        }
+    }
+}
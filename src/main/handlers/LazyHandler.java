@@ -0,0 +1,31 @@
+package main.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+// Обработчик (и его сервисы с DAO) создается при первом запросе, а не до открытия порта
+public class LazyHandler implements HttpHandler {
+    private final Supplier<? extends HttpHandler> factory;
+    private volatile HttpHandler handler;
+
+    public LazyHandler(Supplier<? extends HttpHandler> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        HttpHandler current = handler;
+        if (current == null) {
+            synchronized (this) {
+                current = handler;
+                if (current == null) {
+                    current = factory.get();
+                    handler = current;
+                }
+            }
+        }
+        current.handle(exchange);
+    }
+}
@@ -0,0 +1,98 @@
+package main.handlers;
+
+import main.utils.ConcurrencyLimiter;
+import main.utils.JsonResponse;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// На потоке отсека, до разбора сессии и обращений к БД: при перегрузке отвечает 503 сразу.
+// Публичные GET с кэшем ответов пропускаются без места под пределом: попадание в кэш и 304 не трогают БД.
+// Место для них занимается только при промахе кэша (admitCacheMiss)
+public class LoadSheddingFilter extends Filter {
+    private static final long DEFERRED = Long.MIN_VALUE;
+
+    // Время начала для release() или DEFERRED, пока место под пределом не занято; только на потоке запроса
+    private static final ThreadLocal<Long> deferred = new ThreadLocal<>();
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!ConcurrencyLimiter.isEnabled()) {
+            chain.doFilter(exchange);
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (isCached(method, path)) {
+            deferred.set(DEFERRED);
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                long start = deferred.get();
+                deferred.remove();
+                if (start != DEFERRED) {
+                    ConcurrencyLimiter.release(start);
+                }
+            }
+            return;
+        }
+
+        long start = ConcurrencyLimiter.acquire(classify(method, path));
+        if (start < 0) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            BaseHandler.writeResponse(exchange, 503, JsonResponse.error("Server is busy, try again later"));
+            return;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            ConcurrencyLimiter.release(start);
+        }
+    }
+
+    // Промах кэша ответов: занимает место под пределом, если запрос был пропущен без него.
+    // false - места нет, запрос нужно отклонить
+    static boolean admitCacheMiss() {
+        Long start = deferred.get();
+        if (start == null || start != DEFERRED) {
+            return true;
+        }
+        long acquired = ConcurrencyLimiter.acquire(ConcurrencyLimiter.Priority.NORMAL);
+        if (acquired < 0) {
+            return false;
+        }
+        deferred.set(acquired);
+        return true;
+    }
+
+    // Маршруты, которые отвечают через sendCachedSuccess
+    static boolean isCached(String method, String path) {
+        if (!"GET".equals(method)) {
+            return false;
+        }
+        if (path.startsWith("/api/movies")) {
+            MovieHandler.Route route = MovieHandler.resolveRoute(method, path);
+            return route == MovieHandler.Route.GET_MOVIE || route == MovieHandler.Route.GET_MOVIES
+                    || route == MovieHandler.Route.TOP_MOVIES;
+        }
+        return path.startsWith("/api/reviews/movie/")
+                && ReviewHandler.resolveRoute(method, path) == ReviewHandler.Route.GET_MOVIE_REVIEWS;
+    }
+
+    // Админка и изменения данных отбрасываются последними, поиск - первым
+    static ConcurrencyLimiter.Priority classify(String method, String path) {
+        if (path.startsWith("/api/admin") || !"GET".equals(method) && !"HEAD".equals(method)) {
+            return ConcurrencyLimiter.Priority.HIGH;
+        }
+        if (path.endsWith("/search")) {
+            return ConcurrencyLimiter.Priority.LOW;
+        }
+        return ConcurrencyLimiter.Priority.NORMAL;
+    }
+
+    @Override
+    public String description() {
+        return "Adaptive concurrency limit";
+    }
+}
@@ -2,6 +2,7 @@ package main.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import main.services.MovieService;
+import main.utils.ResponseCache;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.sql.SQLException;
@@ -12,72 +13,73 @@ import java.util.HashMap;
 public class MovieHandler extends BaseHandler {
     private final MovieService movieService = new MovieService();
 
+    public enum Route {
+        GET_MOVIE, GET_MOVIES, SEARCH_MOVIES, TOP_MOVIES,
+        CREATE_MOVIE, UPDATE_MOVIE, DELETE_MOVIE,
+        NOT_FOUND, METHOD_NOT_ALLOWED
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
             String method = exchange.getRequestMethod();
             String path = exchange.getRequestURI().getPath();
 
-            switch (method) {
-                case "GET":
-                    if (path.matches("/api/movies/\\d+")) {
-                        // GET /api/movies/{id}
-                        handleGetMovie(exchange);
-                    } else if ("/api/movies".equals(path)) {
-                        // GET /api/movies
-                        handleGetMovies(exchange);
-                    } else if ("/api/movies/search".equals(path)) {
-                        // GET /api/movies/search
-                        handleSearchMovies(exchange);
-                    } else if ("/api/movies/top".equals(path)) {
-                        // GET /api/movies/top
-                        handleGetTopMovies(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "POST":
-                    if ("/api/movies".equals(path)) {
-                        // POST /api/movies (admin only)
-                        handleCreateMovie(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "PUT":
-                    if (path.matches("/api/movies/\\d+")) {
-                        // PUT /api/movies/{id} (admin only)
-                        handleUpdateMovie(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "DELETE":
-                    if (path.matches("/api/movies/\\d+")) {
-                        // DELETE /api/movies/{id} (admin only)
-                        handleDeleteMovie(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                default:
-                    sendError(exchange, 405, "Method not allowed");
+            switch (resolveRoute(method, path)) {
+                case GET_MOVIE -> handleGetMovie(exchange);
+                case GET_MOVIES -> handleGetMovies(exchange);
+                case SEARCH_MOVIES -> handleSearchMovies(exchange);
+                case TOP_MOVIES -> handleGetTopMovies(exchange);
+                case CREATE_MOVIE -> handleCreateMovie(exchange);
+                case UPDATE_MOVIE -> handleUpdateMovie(exchange);
+                case DELETE_MOVIE -> handleDeleteMovie(exchange);
+                case METHOD_NOT_ALLOWED -> sendError(exchange, 405, "Method not allowed");
+                default -> sendError(exchange, 404, "Not found");
             }
         } catch (Exception e) {
             sendError(exchange, 500, "Internal server error: " + e.getMessage());
         }
     }
 
-    private void handleGetMovies(HttpExchange exchange) throws IOException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
+    public static Route resolveRoute(String method, String path) {
+        switch (method) {
+            case "GET":
+                if (path.matches("/api/movies/\\d+")) {
+                    // GET /api/movies/{id}
+                    return Route.GET_MOVIE;
+                } else if ("/api/movies".equals(path)) {
+                    // GET /api/movies
+                    return Route.GET_MOVIES;
+                } else if ("/api/movies/search".equals(path)) {
+                    // GET /api/movies/search
+                    return Route.SEARCH_MOVIES;
+                } else if ("/api/movies/top".equals(path)) {
+                    // GET /api/movies/top
+                    return Route.TOP_MOVIES;
+                }
+                return Route.NOT_FOUND;
+
+            case "POST":
+                // POST /api/movies (admin only)
+                return "/api/movies".equals(path) ? Route.CREATE_MOVIE : Route.NOT_FOUND;
+
+            case "PUT":
+                // PUT /api/movies/{id} (admin only)
+                return path.matches("/api/movies/\\d+") ? Route.UPDATE_MOVIE : Route.NOT_FOUND;
+
+            case "DELETE":
+                // DELETE /api/movies/{id} (admin only)
+                return path.matches("/api/movies/\\d+") ? Route.DELETE_MOVIE : Route.NOT_FOUND;
+
+            default:
+                return Route.METHOD_NOT_ALLOWED;
+        }
+    }
 
-        String sortBy = params.get("sortBy");
-        String order = params.get("order");
-        String limitStr = params.get("limit");
+    private void handleGetMovies(HttpExchange exchange) throws IOException {
+        String sortBy = getQueryParameter(exchange, "sortBy");
+        String order = getQueryParameter(exchange, "order");
+        String limitStr = getQueryParameter(exchange, "limit");
 
         Integer limit = null;
         if (limitStr != null && !limitStr.isEmpty()) {
@@ -88,13 +90,16 @@ public class MovieHandler extends BaseHandler {
             }
         }
 
+        // Ключ - нормализованные параметры, влияющие на ответ: посторонние параметры
+        // и разные написания одной сортировки не дробят кэш
+        Integer pageSize = limit;
+        String key = "movies\u0000" + MovieService.listKey(sortBy, order, limit);
         try {
-            List<Map<String, Object>> movies = movieService.getAllMovies(sortBy, order, limit)
-                    .stream()
-                    .map(this::mapMovieToResponse)
-                    .toList();
-
-            sendSuccess(exchange, movies);
+            sendCachedSuccess(exchange, key, ResponseCache.listTag(), () ->
+                    movieService.getAllMovies(sortBy, order, pageSize)
+                            .stream()
+                            .map(this::mapMovieToResponse)
+                            .toList());
         } catch (SQLException e) {
             sendError(exchange, 500, "Failed to get movies");
         }
@@ -102,18 +107,17 @@ public class MovieHandler extends BaseHandler {
 
     private void handleGetMovie(HttpExchange exchange) throws IOException {
         String[] parts = exchange.getRequestURI().getPath().split("/");
-        int movieId = Integer.parseInt(parts[3]);
 
         try {
-            var movie = movieService.getMovieById(movieId);
+            int movieId = Integer.parseInt(parts[3]);
+            boolean found = sendCachedSuccess(exchange, "movie\u0000" + movieId, ResponseCache.movieTag(movieId), () -> {
+                var movie = movieService.getMovieById(movieId);
+                return movie != null ? mapMovieToDetailedResponse(movie) : null;
+            });
 
-            if (movie == null) {
+            if (!found) {
                 sendError(exchange, 404, "Movie not found");
-                return;
             }
-
-            Map<String, Object> response = mapMovieToDetailedResponse(movie);
-            sendSuccess(exchange, response);
         } catch (SQLException e) {
             sendError(exchange, 500, "Failed to get movie");
         } catch (NumberFormatException e) {
@@ -122,8 +126,7 @@ public class MovieHandler extends BaseHandler {
     }
 
     private void handleSearchMovies(HttpExchange exchange) throws IOException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String query = params.get("q");
+        String query = getQueryParameter(exchange, "q");
 
         if (query == null || query.trim().isEmpty()) {
             sendError(exchange, 400, "Search query is required");
@@ -143,17 +146,18 @@ public class MovieHandler extends BaseHandler {
     }
 
     private void handleGetTopMovies(HttpExchange exchange) throws IOException {
-        Map<String, String> params = parseQuery(exchange.getRequestURI().getQuery());
-        String limitStr = params.get("limit") != null ? params.get("limit") : "10";
+        String limitStr = getQueryParameter(exchange, "limit");
+        if (limitStr == null) {
+            limitStr = "10";
+        }
 
         try {
             int limit = Integer.parseInt(limitStr);
-            List<Map<String, Object>> movies = movieService.getTopRatedMovies(limit)
-                    .stream()
-                    .map(this::mapMovieToResponse)
-                    .toList();
-
-            sendSuccess(exchange, movies);
+            sendCachedSuccess(exchange, "top\u0000" + limit, ResponseCache.listTag(), () ->
+                    movieService.getTopRatedMovies(limit)
+                            .stream()
+                            .map(this::mapMovieToResponse)
+                            .toList());
         } catch (NumberFormatException e) {
             sendError(exchange, 400, "Invalid limit parameter");
         } catch (SQLException e) {
@@ -253,17 +257,19 @@ public class MovieHandler extends BaseHandler {
         }
     }
 
-    private Map<String, Object> mapMovieToResponse(main.models.Movie movie) {
-        return Map.of(
-                "id", movie.getId(),
-                "title", movie.getTitle(),
-                "director", movie.getDirector(),
-                "year", movie.getYear(),
-                "description", movie.getDescription(),
-                "duration", movie.getDuration(),
-                "posterUrl", movie.getPosterUrl(),
-                "averageRating", movie.getAverageRating()
-        );
+    // Списки отдают краткую форму, полная (с описанием, жанрами и отзывами) - только у страницы фильма.
+    // HashMap, а не Map.of: режиссер и постер могут быть null
+    private Map<String, Object> mapMovieToResponse(main.models.MovieSummary movie) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", movie.getId());
+        response.put("title", movie.getTitle());
+        response.put("director", movie.getDirector());
+        response.put("year", movie.getYear());
+        response.put("duration", movie.getDuration());
+        response.put("posterUrl", movie.getPosterUrl());
+        response.put("averageRating", movie.getAverageRating());
+        response.put("reviewCount", movie.getReviewCount());
+        return response;
     }
 
     private Map<String, Object> mapMovieToDetailedResponse(main.models.Movie movie) {
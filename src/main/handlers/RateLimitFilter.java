@@ -0,0 +1,68 @@
+package main.handlers;
+
+import main.utils.JsonResponse;
+import main.utils.RateLimiter;
+import main.utils.SessionManager;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// Ограничение частоты запросов отдельно для каждого класса маршрутов. Два экземпляра в цепочке:
+// по IP - перед отсеком, на потоке сервера; по пользователю - после разбора сессии
+public class RateLimitFilter extends Filter {
+    private final boolean byUser;
+
+    private RateLimitFilter(boolean byUser) {
+        this.byUser = byUser;
+    }
+
+    public static RateLimitFilter byIp() {
+        return new RateLimitFilter(false);
+    }
+
+    public static RateLimitFilter byUser() {
+        return new RateLimitFilter(true);
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!RateLimiter.isEnabled()) {
+            chain.doFilter(exchange);
+            return;
+        }
+
+        RateLimiter.RouteClass routeClass = classify(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+        long waitMillis;
+        if (byUser) {
+            SessionManager.Principal principal = BaseHandler.principalOf(exchange);
+            waitMillis = RateLimiter.acquireByUser(principal != null ? principal.getUserId() : null, routeClass);
+        } else {
+            waitMillis = RateLimiter.acquireByIp(exchange.getRemoteAddress().getAddress().getHostAddress(), routeClass);
+        }
+
+        if (waitMillis > 0) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf((waitMillis + 999) / 1000));
+            BaseHandler.writeResponse(exchange, 429, JsonResponse.error("Too many requests"));
+            return;
+        }
+        chain.doFilter(exchange);
+    }
+
+    static RateLimiter.RouteClass classify(String method, String path) {
+        if ("/api/auth/login".equals(path) || "/api/auth/register".equals(path)) {
+            return RateLimiter.RouteClass.AUTH;
+        }
+        if (path.endsWith("/search")) {
+            return RateLimiter.RouteClass.SEARCH;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+            return RateLimiter.RouteClass.WRITE;
+        }
+        return RateLimiter.RouteClass.READ;
+    }
+
+    @Override
+    public String description() {
+        return byUser ? "Per-user rate limiting" : "Per-IP rate limiting";
+    }
+}
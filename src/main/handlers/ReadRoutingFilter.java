@@ -0,0 +1,41 @@
+package main.handlers;
+
+import main.utils.ReplicaRouter;
+import main.utils.SessionManager;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// Запросы на запись и чтения пользователя сразу после его записи идут в основную БД
+public class ReadRoutingFilter extends Filter {
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!ReplicaRouter.isEnabled()) {
+            chain.doFilter(exchange);
+            return;
+        }
+
+        String method = exchange.getRequestMethod();
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+        SessionManager.Principal principal = BaseHandler.principalOf(exchange);
+        if (write || principal != null && ReplicaRouter.hasRecentWrite(principal.getUserId())) {
+            ReplicaRouter.pinPrimary();
+        }
+
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            ReplicaRouter.unpin();
+            int status = exchange.getResponseCode();
+            if (write && principal != null && status >= 200 && status < 400) {
+                ReplicaRouter.recordWrite(principal.getUserId());
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Read replica routing";
+    }
+}
@@ -0,0 +1,26 @@
+package main.handlers;
+
+import main.utils.JsonResponse;
+import main.utils.Startup;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// Пока этапы запуска не выполнены (схема БД, реплики), API отвечает 503 сразу, без похода в БД
+public class ReadinessFilter extends Filter {
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (Startup.isReady()) {
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        BaseHandler.writeResponse(exchange, 503, JsonResponse.error("Server is starting, try again later"));
+    }
+
+    @Override
+    public String description() {
+        return "Startup readiness gate";
+    }
+}
@@ -0,0 +1,20 @@
+package main.handlers;
+
+import main.utils.ScopedExchange;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+// Подменяет обмен на ScopedExchange, чтобы обработчики могли кэшировать данные запроса в атрибутах
+public class RequestScopeFilter extends Filter {
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        chain.doFilter(exchange instanceof ScopedExchange ? exchange : new ScopedExchange(exchange));
+    }
+
+    @Override
+    public String description() {
+        return "Per-request exchange attributes";
+    }
+}
@@ -2,104 +2,109 @@ package main.handlers;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import main.services.ReviewService;
+import main.utils.ResponseCache;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ReviewHandler extends BaseHandler {
     private final ReviewService reviewService = new ReviewService();
 
+    public enum Route {
+        GET_MOVIE_REVIEWS, GET_REVIEW, GET_MY_REVIEWS, GET_PENDING_REVIEWS,
+        CREATE_REVIEW, UPDATE_REVIEW, DELETE_REVIEW, APPROVE_REVIEW, REJECT_REVIEW,
+        NOT_FOUND, METHOD_NOT_ALLOWED
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
             String method = exchange.getRequestMethod();
             String path = exchange.getRequestURI().getPath();
 
-            switch (method) {
-                case "GET":
-                    if (path.matches("/api/reviews/movie/\\d+")) {
-                        // GET /api/reviews/movie/{movieId}
-                        handleGetMovieReviews(exchange);
-                    } else if (path.matches("/api/reviews/\\d+")) {
-                        // GET /api/reviews/{reviewId}
-                        handleGetReview(exchange);
-                    } else if ("/api/reviews/my".equals(path)) {
-                        // GET /api/reviews/my
-                        handleGetMyReviews(exchange);
-                    } else if ("/api/reviews/pending".equals(path)) {
-                        // GET /api/reviews/pending (admin only)
-                        handleGetPendingReviews(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "POST":
-                    if ("/api/reviews".equals(path)) {
-                        // POST /api/reviews
-                        handleCreateReview(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "PUT":
-                    if (path.matches("/api/reviews/\\d+")) {
-                        // PUT /api/reviews/{reviewId}
-                        handleUpdateReview(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "DELETE":
-                    if (path.matches("/api/reviews/\\d+")) {
-                        // DELETE /api/reviews/{reviewId}
-                        handleDeleteReview(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                case "PATCH":
-                    if (path.matches("/api/reviews/\\d+/approve")) {
-                        // PATCH /api/reviews/{reviewId}/approve (admin only)
-                        handleApproveReview(exchange);
-                    } else if (path.matches("/api/reviews/\\d+/reject")) {
-                        // PATCH /api/reviews/{reviewId}/reject (admin only)
-                        handleRejectReview(exchange);
-                    } else {
-                        sendError(exchange, 404, "Not found");
-                    }
-                    break;
-
-                default:
-                    sendError(exchange, 405, "Method not allowed");
+            switch (resolveRoute(method, path)) {
+                case GET_MOVIE_REVIEWS -> handleGetMovieReviews(exchange);
+                case GET_REVIEW -> handleGetReview(exchange);
+                case GET_MY_REVIEWS -> handleGetMyReviews(exchange);
+                case GET_PENDING_REVIEWS -> handleGetPendingReviews(exchange);
+                case CREATE_REVIEW -> handleCreateReview(exchange);
+                case UPDATE_REVIEW -> handleUpdateReview(exchange);
+                case DELETE_REVIEW -> handleDeleteReview(exchange);
+                case APPROVE_REVIEW -> handleApproveReview(exchange);
+                case REJECT_REVIEW -> handleRejectReview(exchange);
+                case METHOD_NOT_ALLOWED -> sendError(exchange, 405, "Method not allowed");
+                default -> sendError(exchange, 404, "Not found");
             }
         } catch (Exception e) {
             sendError(exchange, 500, "Internal server error: " + e.getMessage());
         }
     }
 
+    public static Route resolveRoute(String method, String path) {
+        switch (method) {
+            case "GET":
+                if (path.matches("/api/reviews/movie/\\d+")) {
+                    // GET /api/reviews/movie/{movieId}
+                    return Route.GET_MOVIE_REVIEWS;
+                } else if (path.matches("/api/reviews/\\d+")) {
+                    // GET /api/reviews/{reviewId}
+                    return Route.GET_REVIEW;
+                } else if ("/api/reviews/my".equals(path)) {
+                    // GET /api/reviews/my
+                    return Route.GET_MY_REVIEWS;
+                } else if ("/api/reviews/pending".equals(path)) {
+                    // GET /api/reviews/pending (admin only)
+                    return Route.GET_PENDING_REVIEWS;
+                }
+                return Route.NOT_FOUND;
+
+            case "POST":
+                // POST /api/reviews
+                return "/api/reviews".equals(path) ? Route.CREATE_REVIEW : Route.NOT_FOUND;
+
+            case "PUT":
+                // PUT /api/reviews/{reviewId}
+                return path.matches("/api/reviews/\\d+") ? Route.UPDATE_REVIEW : Route.NOT_FOUND;
+
+            case "DELETE":
+                // DELETE /api/reviews/{reviewId}
+                return path.matches("/api/reviews/\\d+") ? Route.DELETE_REVIEW : Route.NOT_FOUND;
+
+            case "PATCH":
+                if (path.matches("/api/reviews/\\d+/approve")) {
+                    // PATCH /api/reviews/{reviewId}/approve (admin only)
+                    return Route.APPROVE_REVIEW;
+                } else if (path.matches("/api/reviews/\\d+/reject")) {
+                    // PATCH /api/reviews/{reviewId}/reject (admin only)
+                    return Route.REJECT_REVIEW;
+                }
+                return Route.NOT_FOUND;
+
+            default:
+                return Route.METHOD_NOT_ALLOWED;
+        }
+    }
+
     private void handleGetMovieReviews(HttpExchange exchange) throws IOException {
         String[] parts = exchange.getRequestURI().getPath().split("/");
-        int movieId = Integer.parseInt(parts[3]);
+        int movieId = Integer.parseInt(parts[4]);
 
         try {
-            List<Map<String, Object>> reviews = reviewService.getMovieReviews(movieId)
-                    .stream()
-                    .map(this::mapReviewToResponse)
-                    .toList();
-
-            Map<String, Object> response = Map.of(
-                    "reviews", reviews,
-                    "averageRating", reviewService.getAverageRating(movieId),
-                    "reviewCount", reviewService.getReviewCount(movieId)
-            );
-
-            sendSuccess(exchange, response);
+            sendCachedSuccess(exchange, "reviews\u0000" + movieId, ResponseCache.movieTag(movieId), () -> {
+                List<Map<String, Object>> reviews = reviewService.getMovieReviews(movieId)
+                        .stream()
+                        .map(this::mapReviewToResponse)
+                        .toList();
+
+                return Map.of(
+                        "reviews", reviews,
+                        "averageRating", reviewService.getAverageRating(movieId),
+                        "reviewCount", reviewService.getReviewCount(movieId)
+                );
+            });
         } catch (SQLException e) {
             sendError(exchange, 500, "Failed to get reviews");
         }
@@ -290,18 +295,19 @@ public class ReviewHandler extends BaseHandler {
         }
     }
 
+    // Комментарий необязателен, поэтому HashMap: Map.of падает на null
     private Map<String, Object> mapReviewToResponse(main.models.Review review) {
-        return Map.of(
-                "id", review.getId(),
-                "movieId", review.getMovieId(),
-                "userId", review.getUserId(),
-                "username", review.getUsername() != null ? review.getUsername() : "",
-                "movieTitle", review.getMovieTitle() != null ? review.getMovieTitle() : "",
-                "rating", review.getRating(),
-                "comment", review.getComment(),
-                "createdAt", review.getCreatedAt().toString(),
-                "updatedAt", review.getUpdatedAt() != null ? review.getUpdatedAt().toString() : "",
-                "isApproved", review.isApproved()
-        );
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", review.getId());
+        response.put("movieId", review.getMovieId());
+        response.put("userId", review.getUserId());
+        response.put("username", review.getUsername() != null ? review.getUsername() : "");
+        response.put("movieTitle", review.getMovieTitle() != null ? review.getMovieTitle() : "");
+        response.put("rating", review.getRating());
+        response.put("comment", review.getComment());
+        response.put("createdAt", review.getCreatedAt().toString());
+        response.put("updatedAt", review.getUpdatedAt() != null ? review.getUpdatedAt().toString() : "");
+        response.put("isApproved", review.isApproved());
+        return response;
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package main.models;
+
+// Фильм в списках и виджетах: без описания, жанров и отзывов - их показывает только страница фильма
+public class MovieSummary {
+    private int id;
+    private String title;
+    private String director;
+    private int year;
+    private int duration;
+    private String posterUrl;
+    private double averageRating;
+    private int reviewCount;
+
+    // Constructors
+    public MovieSummary() {}
+
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDirector() { return director; }
+    public void setDirector(String director) { this.director = director; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+
+    public int getDuration() { return duration; }
+    public void setDuration(int duration) { this.duration = duration; }
+
+    public String getPosterUrl() { return posterUrl; }
+    public void setPosterUrl(String posterUrl) { this.posterUrl = posterUrl; }
+
+    public double getAverageRating() { return averageRating; }
+    public void setAverageRating(double averageRating) { this.averageRating = averageRating; }
+
+    public int getReviewCount() { return reviewCount; }
+    public void setReviewCount(int reviewCount) { this.reviewCount = reviewCount; }
+}
@@ -0,0 +1,51 @@
+package main.models;
+
+import java.sql.Timestamp;
+
+// Отзыв в списках модерации: вместо полного текста - начало комментария
+public class ReviewSummary {
+    private int id;
+    private int movieId;
+    private int userId;
+    private String username;
+    private String movieTitle;
+    private int rating;
+    private String commentPreview;
+    private boolean commentTruncated;
+    private Timestamp createdAt;
+    private boolean isApproved;
+
+    // Constructors
+    public ReviewSummary() {}
+
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public int getMovieId() { return movieId; }
+    public void setMovieId(int movieId) { this.movieId = movieId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getMovieTitle() { return movieTitle; }
+    public void setMovieTitle(String movieTitle) { this.movieTitle = movieTitle; }
+
+    public int getRating() { return rating; }
+    public void setRating(int rating) { this.rating = rating; }
+
+    public String getCommentPreview() { return commentPreview; }
+    public void setCommentPreview(String commentPreview) { this.commentPreview = commentPreview; }
+
+    public boolean isCommentTruncated() { return commentTruncated; }
+    public void setCommentTruncated(boolean commentTruncated) { this.commentTruncated = commentTruncated; }
+
+    public Timestamp getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
+
+    public boolean isApproved() { return isApproved; }
+    public void setApproved(boolean approved) { isApproved = approved; }
+}
@@ -252,7 +252,7 @@ class AdminManager {
                 </td>
                 <td>
                     <div class="review-comment-preview">
-                        ${review.comment ? Utils.escapeHtml(review.comment.substring(0, 100)) + (review.comment.length > 100 ? '...' : '') : '-'}
+                        ${review.comment ? Utils.escapeHtml(review.comment) + (review.commentTruncated ? '...' : '') : '-'}
                     </div>
                 </td>
                 <td>${Utils.formatDate(review.createdAt)}</td>
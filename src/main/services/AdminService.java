@@ -6,12 +6,30 @@ import main.dao.ReviewDAO;
 import main.dao.UserDAO;
 import main.dao.GenreDAO;
 import main.models.Movie;
+import main.models.MovieSummary;
 import main.models.Review;
+import main.models.ReviewSummary;
 import main.models.Genre;
 import main.models.User;
+import main.utils.BatchLoader;
+import main.utils.Bulkhead;
+import main.utils.ConcurrencyLimiter;
+import main.utils.DatabaseConnection;
+import main.utils.HealthMonitor;
+import main.utils.PasswordHasher;
+import main.utils.QueryStats;
+import main.utils.RateLimiter;
+import main.utils.ReplicaRouter;
+import main.utils.ResponseCache;
+import main.utils.RequestDeadline;
+import main.utils.SchemaMigrator;
+import main.utils.SessionManager;
+import main.utils.Startup;
+import main.utils.UnitOfWork;
 import main.utils.Validator;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -26,89 +44,63 @@ public class AdminService {
     // === Управление пользователями ===
 
     public List<Map<String, Object>> getUsers(int page, int limit, String filter) throws SQLException {
-        List<User> users;
-
-        switch (filter) {
-            case "active":
-                // Только активные пользователи
-                users = userDAO.getAllUsers().stream()
-                        .filter(User::isActive)
-                        .toList();
-                break;
-            case "inactive":
-                // Только неактивные пользователи
-                users = userDAO.getAllUsers().stream()
-                        .filter(user -> !user.isActive())
-                        .toList();
-                break;
-            case "admins":
-                // Только администраторы
-                users = userDAO.getAllUsers().stream()
-                        .filter(user -> "ADMIN".equals(user.getRole()))
-                        .toList();
-                break;
-            default:
-                // Все пользователи
-                users = userDAO.getAllUsers();
+        if (limit <= 0) {
+            return new ArrayList<>();
         }
 
-        // Пагинация
-        int start = (page - 1) * limit;
-        int end = Math.min(start + limit, users.size());
+        // Фильтр и пагинация в БД: стоимость страницы не зависит от числа пользователей
+        List<User> pageUsers = userDAO.getUsers(filter, limit, (page - 1) * limit);
+        BatchLoader<Integer, ReviewDAO.UserReviewSummary> reviews = userReviewLoader(pageUsers);
 
         List<Map<String, Object>> result = new ArrayList<>();
-        for (int i = start; i < end; i++) {
-            User user = users.get(i);
-            result.add(mapUserToResponse(user));
+        for (User user : pageUsers) {
+            result.add(mapUserToResponse(user, reviews));
         }
 
         return result;
     }
 
     public int getUsersCount(String filter) throws SQLException {
-        List<User> users = userDAO.getAllUsers();
-
-        switch (filter) {
-            case "active":
-                return (int) users.stream().filter(User::isActive).count();
-            case "inactive":
-                return (int) users.stream().filter(user -> !user.isActive()).count();
-            case "admins":
-                return (int) users.stream().filter(user -> "ADMIN".equals(user.getRole())).count();
-            default:
-                return users.size();
-        }
+        return userDAO.countUsers(filter);
     }
 
     public List<Map<String, Object>> searchUsers(String query) throws SQLException {
         List<User> allUsers = userDAO.getAllUsers();
         String searchQuery = query.toLowerCase();
 
-        List<Map<String, Object>> result = new ArrayList<>();
+        List<User> found = new ArrayList<>();
         for (User user : allUsers) {
             if (user.getUsername().toLowerCase().contains(searchQuery) ||
                     user.getEmail().toLowerCase().contains(searchQuery)) {
-                result.add(mapUserToResponse(user));
+                found.add(user);
             }
         }
 
+        BatchLoader<Integer, ReviewDAO.UserReviewSummary> reviews = userReviewLoader(found);
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (User user : found) {
+            result.add(mapUserToResponse(user, reviews));
+        }
+
         return result;
     }
 
     public boolean updateUser(int userId, String username, String email, String role, boolean isActive)
             throws SQLException {
 
-        User user = userDAO.getUserById(userId);
-        if (user == null) {
-            return false;
-        }
+        return UnitOfWork.run(() -> {
+            User user = userDAO.getUserById(userId);
+            if (user == null) {
+                return false;
+            }
 
-        user.setUsername(username);
-        user.setEmail(email);
-        user.setRole(role);
-        user.setActive(isActive);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setRole(role);
+            user.setActive(isActive);
 
-        return userDAO.updateUser(user);
+            return userDAO.updateUser(user);
+        });
     }
 
     public boolean updateUserStatus(int userId, boolean isActive) throws SQLException {
@@ -128,31 +120,34 @@ public class AdminService {
     public List<Map<String, Object>> getMovies(int page, int limit, String sortBy, String order)
             throws SQLException {
 
-        List<Movie> movies = movieDAO.getAllMovies(sortBy, order, null);
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
 
-        // Пагинация
-        int start = (page - 1) * limit;
-        int end = Math.min(start + limit, movies.size());
+        // Пагинация в БД: LIMIT и OFFSET привязываются параметрами
+        List<MovieSummary> pageMovies = movieDAO.getAllMovies(sortBy, order, limit, (page - 1) * limit);
+        MovieExtras extras = new MovieExtras(pageMovies);
 
         List<Map<String, Object>> result = new ArrayList<>();
-        for (int i = start; i < end; i++) {
-            Movie movie = movies.get(i);
-            result.add(mapMovieToResponse(movie));
+        for (MovieSummary movie : pageMovies) {
+            result.add(mapMovieToResponse(movie, extras));
         }
 
         return result;
     }
 
     public int getMoviesCount() throws SQLException {
-        return movieDAO.getAllMovies(null, null, null).size();
+        return movieDAO.countMovies();
     }
 
     public List<Map<String, Object>> searchMovies(String query) throws SQLException {
-        List<Movie> movies = movieDAO.searchMovies(query);
+        List<MovieSummary> movies = movieDAO.searchMovies(query);
+
+        MovieExtras extras = new MovieExtras(movies);
 
         List<Map<String, Object>> result = new ArrayList<>();
-        for (Movie movie : movies) {
-            result.add(mapMovieToResponse(movie));
+        for (MovieSummary movie : movies) {
+            result.add(mapMovieToResponse(movie, extras));
         }
 
         return result;
@@ -173,38 +168,42 @@ public class AdminService {
         Movie movie = new Movie(title, director, year, description, duration);
         movie.setPosterUrl(posterUrl);
 
-        Movie createdMovie = movieDAO.createMovie(movie);
+        // Фильм и его жанры - одна транзакция на одном соединении
+        return UnitOfWork.run(() -> {
+            Movie createdMovie = movieDAO.createMovie(movie);
 
-        // Добавляем жанры
-        if (genres != null && !genres.isEmpty()) {
-            for (String genreName : genres) {
-                Genre genre = getOrCreateGenre(genreName);
-                if (genre != null) {
-                    genreDAO.addGenreToMovie(createdMovie.getId(), genre.getId());
+            // Добавляем жанры
+            if (genres != null && !genres.isEmpty()) {
+                List<Integer> genreIds = new ArrayList<>();
+                for (Genre genre : genreDAO.getOrCreateGenres(genres)) {
+                    genreIds.add(genre.getId());
                 }
+                genreDAO.addGenresToMovie(createdMovie.getId(), genreIds);
             }
-        }
 
-        return createdMovie;
+            return createdMovie;
+        });
     }
 
     public boolean updateMovie(int movieId, String title, String director, Integer year,
                                String description, Integer duration, String posterUrl)
             throws SQLException {
 
-        Movie movie = movieDAO.getMovieById(movieId);
-        if (movie == null) {
-            return false;
-        }
+        return UnitOfWork.run(() -> {
+            Movie movie = movieDAO.getMovieById(movieId);
+            if (movie == null) {
+                return false;
+            }
 
-        movie.setTitle(title);
-        movie.setDirector(director);
-        if (year != null) movie.setYear(year);
-        movie.setDescription(description);
-        if (duration != null) movie.setDuration(duration);
-        movie.setPosterUrl(posterUrl);
+            movie.setTitle(title);
+            movie.setDirector(director);
+            if (year != null) movie.setYear(year);
+            movie.setDescription(description);
+            if (duration != null) movie.setDuration(duration);
+            movie.setPosterUrl(posterUrl);
 
-        return movieDAO.updateMovie(movie);
+            return movieDAO.updateMovie(movie);
+        });
     }
 
     public boolean deleteMovie(int movieId) throws SQLException {
@@ -214,18 +213,18 @@ public class AdminService {
     // === Управление отзывами ===
 
     public List<Map<String, Object>> getReviews(int page, int limit, String filter) throws SQLException {
-        List<Review> reviews;
+        List<ReviewSummary> reviews;
 
         switch (filter) {
             case "pending":
-                reviews = reviewDAO.getAllReviews(true);
+                reviews = reviewDAO.getReviewSummaries(true);
                 break;
             case "approved":
-                reviews = reviewDAO.getAllReviews(false);
+                reviews = reviewDAO.getReviewSummaries(false);
                 break;
             default:
-                reviews = reviewDAO.getAllReviews(false);
-                reviews.addAll(reviewDAO.getAllReviews(true));
+                reviews = reviewDAO.getReviewSummaries(false);
+                reviews.addAll(reviewDAO.getReviewSummaries(true));
         }
 
         // Пагинация
@@ -234,7 +233,7 @@ public class AdminService {
 
         List<Map<String, Object>> result = new ArrayList<>();
         for (int i = start; i < end; i++) {
-            Review review = reviews.get(i);
+            ReviewSummary review = reviews.get(i);
             result.add(mapReviewToResponse(review));
         }
 
@@ -244,19 +243,19 @@ public class AdminService {
     public int getReviewsCount(String filter) throws SQLException {
         switch (filter) {
             case "pending":
-                return reviewDAO.getAllReviews(true).size();
+                return reviewDAO.countReviews(true);
             case "approved":
-                return reviewDAO.getAllReviews(false).size();
+                return reviewDAO.countReviews(false);
             default:
-                return reviewDAO.getAllReviews(false).size() + reviewDAO.getAllReviews(true).size();
+                return reviewDAO.countReviews(false) + reviewDAO.countReviews(true);
         }
     }
 
     public List<Map<String, Object>> getPendingReviews() throws SQLException {
-        List<Review> reviews = reviewDAO.getAllReviews(true);
+        List<ReviewSummary> reviews = reviewDAO.getReviewSummaries(true);
 
         List<Map<String, Object>> result = new ArrayList<>();
-        for (Review review : reviews) {
+        for (ReviewSummary review : reviews) {
             result.add(mapReviewToResponse(review));
         }
 
@@ -284,24 +283,16 @@ public class AdminService {
     // === Управление жанрами ===
 
     public List<Map<String, Object>> getGenresWithStats() throws SQLException {
-        List<Genre> genres = genreDAO.getAllGenres();
+        // Количество фильмов считает один GROUP BY вместо запроса на каждую пару жанр-фильм
+        List<Genre> genres = adminDAO.getAllGenresWithStats();
+        genres.sort(Comparator.comparing(Genre::getName, String.CASE_INSENSITIVE_ORDER));
 
         List<Map<String, Object>> result = new ArrayList<>();
         for (Genre genre : genres) {
             Map<String, Object> genreData = new HashMap<>();
             genreData.put("id", genre.getId());
             genreData.put("name", genre.getName());
-
-            // Получаем количество фильмов для жанра
-            List<Movie> movies = movieDAO.getAllMovies(null, null, null);
-            int movieCount = 0;
-            for (Movie movie : movies) {
-                List<Genre> movieGenres = genreDAO.getMovieGenres(movie.getId());
-                if (movieGenres.stream().anyMatch(g -> g.getId() == genre.getId())) {
-                    movieCount++;
-                }
-            }
-            genreData.put("movieCount", movieCount);
+            genreData.put("movieCount", genre.getMovieCount());
 
             result.add(genreData);
         }
@@ -418,17 +409,78 @@ public class AdminService {
         result.put("freeMemory", runtime.freeMemory() / 1024 / 1024);
         result.put("maxMemory", runtime.maxMemory() / 1024 / 1024);
         result.put("availableProcessors", runtime.availableProcessors());
+        result.put("passwordHashing", PasswordHasher.getStats());
+        result.put("sessions", SessionManager.getStats());
+        result.put("rateLimiter", RateLimiter.getStats());
+        result.put("concurrency", ConcurrencyLimiter.getStats());
+        result.put("bulkheads", Bulkhead.getStats());
+        result.put("connectionPool", DatabaseConnection.getPoolStats());
+        result.put("replicas", ReplicaRouter.getStats());
+        result.put("deadlines", RequestDeadline.getStats());
+        result.put("unitOfWork", UnitOfWork.getStats());
+        result.put("genreCache", GenreDAO.getCacheStats());
+        result.put("batchLoader", BatchLoader.getStats());
+        result.put("schema", SchemaMigrator.getStats());
+        result.put("startup", Startup.getStats());
+        result.put("health", HealthMonitor.getStats());
+        result.put("responseCache", ResponseCache.getStats());
 
         return result;
     }
 
+    public List<Map<String, Object>> getQueryStats(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (QueryStats.Entry entry : QueryStats.snapshot()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Map<String, Object> queryData = new HashMap<>();
+            queryData.put("sql", entry.getSql());
+            queryData.put("count", entry.getCount());
+            queryData.put("errors", entry.getErrors());
+            queryData.put("rows", entry.getRows());
+            queryData.put("totalMs", Math.round(entry.getTotalMillis() * 10.0) / 10.0);
+            queryData.put("avgMs", Math.round(entry.getAverageMillis() * 100.0) / 100.0);
+            queryData.put("maxMs", Math.round(entry.getMaxMillis() * 10.0) / 10.0);
+            queryData.put("histogram", entry.getHistogram());
+            result.add(queryData);
+        }
+        return result;
+    }
+
+    public long[] getQueryHistogramBounds() {
+        return QueryStats.getBucketBoundsMillis();
+    }
+
     public boolean createBackup(String backupPath) throws SQLException {
         return adminDAO.backupDatabase(backupPath);
     }
 
     // === Вспомогательные методы ===
 
-    private Map<String, Object> mapUserToResponse(User user) {
+    // Отзывы, счетчики и жанры для страницы списка загружаются пачками: число запросов
+    // не зависит от размера страницы
+    private BatchLoader<Integer, ReviewDAO.UserReviewSummary> userReviewLoader(List<User> users) {
+        BatchLoader<Integer, ReviewDAO.UserReviewSummary> loader =
+                new BatchLoader<>(reviewDAO::getUserReviewSummaries, new ReviewDAO.UserReviewSummary());
+        for (User user : users) {
+            loader.enqueue(user.getId());
+        }
+        return loader;
+    }
+
+    private final class MovieExtras {
+        final BatchLoader<Integer, List<Genre>> genres = new BatchLoader<>(genreDAO::getGenresForMovies, List.of());
+
+        MovieExtras(List<MovieSummary> movies) {
+            for (MovieSummary movie : movies) {
+                genres.enqueue(movie.getId());
+            }
+        }
+    }
+
+    private Map<String, Object> mapUserToResponse(User user,
+                                                  BatchLoader<Integer, ReviewDAO.UserReviewSummary> reviews) {
         Map<String, Object> response = new HashMap<>();
         response.put("id", user.getId());
         response.put("username", user.getUsername());
@@ -439,11 +491,11 @@ public class AdminService {
 
         try {
             // Получаем статистику пользователя
-            List<Review> reviews = reviewDAO.getUserReviews(user.getId());
-            response.put("reviewCount", reviews.size());
+            ReviewDAO.UserReviewSummary summary = reviews.get(user.getId());
+            response.put("reviewCount", summary.getReviewCount());
 
-            if (!reviews.isEmpty()) {
-                response.put("lastReviewDate", reviews.get(0).getCreatedAt().toString());
+            if (summary.getLastReviewDate() != null) {
+                response.put("lastReviewDate", summary.getLastReviewDate().toString());
             }
         } catch (SQLException e) {
             response.put("reviewCount", 0);
@@ -452,23 +504,20 @@ public class AdminService {
         return response;
     }
 
-    private Map<String, Object> mapMovieToResponse(Movie movie) {
+    private Map<String, Object> mapMovieToResponse(MovieSummary movie, MovieExtras extras) {
         Map<String, Object> response = new HashMap<>();
         response.put("id", movie.getId());
         response.put("title", movie.getTitle());
         response.put("director", movie.getDirector());
         response.put("year", movie.getYear());
-        response.put("description", movie.getDescription());
         response.put("duration", movie.getDuration());
         response.put("posterUrl", movie.getPosterUrl());
         response.put("averageRating", movie.getAverageRating());
+        response.put("reviewCount", movie.getReviewCount());
 
         try {
-            // Получаем количество отзывов
-            response.put("reviewCount", reviewDAO.getReviewCount(movie.getId()));
-
             // Получаем жанры
-            List<Genre> genres = genreDAO.getMovieGenres(movie.getId());
+            List<Genre> genres = extras.genres.get(movie.getId());
             List<Map<String, Object>> genreData = new ArrayList<>();
             for (Genre genre : genres) {
                 Map<String, Object> genreInfo = new HashMap<>();
@@ -478,14 +527,13 @@ public class AdminService {
             }
             response.put("genres", genreData);
         } catch (SQLException e) {
-            response.put("reviewCount", 0);
             response.put("genres", new ArrayList<>());
         }
 
         return response;
     }
 
-    private Map<String, Object> mapReviewToResponse(Review review) {
+    private Map<String, Object> mapReviewToResponse(ReviewSummary review) {
         Map<String, Object> response = new HashMap<>();
         response.put("id", review.getId());
         response.put("movieId", review.getMovieId());
@@ -493,25 +541,11 @@ public class AdminService {
         response.put("username", review.getUsername());
         response.put("movieTitle", review.getMovieTitle());
         response.put("rating", review.getRating());
-        response.put("comment", review.getComment());
+        response.put("comment", review.getCommentPreview());
+        response.put("commentTruncated", review.isCommentTruncated());
         response.put("createdAt", review.getCreatedAt().toString());
-        response.put("updatedAt", review.getUpdatedAt() != null ? review.getUpdatedAt().toString() : null);
         response.put("isApproved", review.isApproved());
 
         return response;
     }
-
-    private Genre getOrCreateGenre(String genreName) throws SQLException {
-        List<Genre> allGenres = genreDAO.getAllGenres();
-
-        // Ищем существующий жанр
-        for (Genre genre : allGenres) {
-            if (genre.getName().equalsIgnoreCase(genreName)) {
-                return genre;
-            }
-        }
-
-        // Создаем новый жанр
-        return genreDAO.createGenre(genreName);
-    }
 }
\ No newline at end of file
@@ -5,11 +5,14 @@ import main.models.User;
 import main.utils.PasswordHasher;
 import main.utils.Validator;
 import java.sql.SQLException;
+import java.util.concurrent.TimeoutException;
 
 public class AuthService {
     private final UserDAO userDAO = new UserDAO();
 
-    public User register(String username, String email, String password) throws SQLException {
+    // Хэширование идет на пуле PasswordHasher, а вызывающий поток ждет его и сам делает запись в БД:
+    // так запись остается в квоте соединений отсека и в сроке запроса
+    public User register(String username, String email, String password) throws SQLException, TimeoutException {
         // Валидация
         if (!Validator.isValidUsername(username)) {
             throw new IllegalArgumentException("Имя пользователя должно содержать от 3 до 20 символов (буквы, цифры, подчеркивание)");
@@ -33,24 +36,36 @@ public class AuthService {
         }
 
         // Создание пользователя
-        String passwordHash = PasswordHasher.hashPassword(password);
-        User user = new User(username, email, passwordHash);
-
-        return userDAO.createUser(user);
+        String passwordHash = PasswordHasher.await(PasswordHasher.hashPasswordAsync(password));
+        return userDAO.createUser(new User(username, email, passwordHash));
     }
 
-    public User login(String email, String password) throws SQLException {
+    public User login(String email, String password) throws SQLException, TimeoutException {
         User user = userDAO.getUserByEmail(email);
 
         if (user == null) {
             return null;
         }
 
-        if (!PasswordHasher.checkPassword(password, user.getPasswordHash())) {
-            return null;
+        boolean matches = PasswordHasher.await(PasswordHasher.checkPasswordAsync(password, user.getPasswordHash()));
+        if (matches && PasswordHasher.needsRehash(user.getPasswordHash())) {
+            upgradeHash(user, password);
         }
+        return matches ? user : null;
+    }
 
-        return user;
+    // Пересчет хэша под текущую стоимость, как и регистрация, идет на потоке отсека: запись в БД
+    // не занимает пул хэширования и остается в квоте соединений и сроке запроса.
+    // Вход от него не зависит: если пул занят, срок вышел или запись не удалась, попробуем при следующем входе
+    private void upgradeHash(User user, String password) {
+        try {
+            String passwordHash = PasswordHasher.await(PasswordHasher.hashPasswordAsync(password));
+            userDAO.updatePasswordHash(user.getId(), passwordHash);
+        } catch (PasswordHasher.OverloadedException | TimeoutException e) {
+            // Пропускаем до следующего входа
+        } catch (SQLException e) {
+            System.err.println("⚠️ Не удалось обновить хэш пароля пользователя " + user.getId() + ": " + e.getMessage());
+        }
     }
 
     public User getUserById(int userId) throws SQLException {
@@ -75,7 +90,6 @@ public class AuthService {
         String newPasswordHash = PasswordHasher.hashPassword(newPassword);
         user.setPasswordHash(newPasswordHash);
 
-        // Для упрощения не обновляем через DAO, нужно добавить метод в UserDAO
-        return true;
+        return userDAO.updatePasswordHash(userId, newPasswordHash);
     }
 }
\ No newline at end of file
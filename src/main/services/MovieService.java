@@ -4,10 +4,13 @@ import main.dao.MovieDAO;
 import main.dao.GenreDAO;
 import main.dao.ReviewDAO;
 import main.models.Movie;
+import main.models.MovieSummary;
 import main.models.Review;
 import main.models.Genre;
+import main.utils.UnitOfWork;
 import main.utils.Validator;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class MovieService {
@@ -38,26 +41,36 @@ public class MovieService {
     }
 
     public Movie getMovieById(int id) throws SQLException {
-        Movie movie = movieDAO.getMovieById(id);
+        // Фильм и отзывы читаются через одно соединение (реплика, если она есть)
+        Movie movie = UnitOfWork.read(() -> {
+            Movie found = movieDAO.getMovieById(id);
+
+            if (found != null) {
+                // Загружаем отзывы
+                List<Review> reviews = reviewDAO.getMovieReviews(id, false);
+                found.setReviews(reviews);
+            }
 
-        if (movie != null) {
-            // Загружаем жанры
-            List<Genre> genres = genreDAO.getMovieGenres(id);
-            movie.setGenres(genres);
+            return found;
+        });
 
-            // Загружаем отзывы
-            List<Review> reviews = reviewDAO.getMovieReviews(id, false);
-            movie.setReviews(reviews);
+        // Жанры читаются с основной БД и обычно берутся из кэша. Вне единицы работы на реплике,
+        // чтобы промах кэша не ждал второго соединения, удерживая первое
+        if (movie != null) {
+            movie.setGenres(genreDAO.getMovieGenres(id));
         }
-
         return movie;
     }
 
-    public List<Movie> getAllMovies(String sortBy, String order, Integer limit) throws SQLException {
+    public List<MovieSummary> getAllMovies(String sortBy, String order, Integer limit) throws SQLException {
         return movieDAO.getAllMovies(sortBy, order, limit);
     }
 
-    public List<Movie> searchMovies(String query) throws SQLException {
+    public static String listKey(String sortBy, String order, Integer limit) {
+        return MovieDAO.listKey(sortBy, order, limit);
+    }
+
+    public List<MovieSummary> searchMovies(String query) throws SQLException {
         if (query == null || query.trim().isEmpty()) {
             return getAllMovies(null, null, 50);
         }
@@ -65,11 +78,11 @@ public class MovieService {
         return movieDAO.searchMovies(query.trim());
     }
 
-    public List<Movie> getTopRatedMovies(int limit) throws SQLException {
+    public List<MovieSummary> getTopRatedMovies(int limit) throws SQLException {
         return movieDAO.getTopRatedMovies(limit);
     }
 
-    public List<Movie> getMoviesByYearRange(int fromYear, int toYear) throws SQLException {
+    public List<MovieSummary> getMoviesByYearRange(int fromYear, int toYear) throws SQLException {
         return movieDAO.getMoviesByYearRange(fromYear, toYear);
     }
 
@@ -77,19 +90,21 @@ public class MovieService {
                                String description, int duration, String posterUrl)
             throws SQLException {
 
-        Movie movie = movieDAO.getMovieById(movieId);
-        if (movie == null) {
-            return false;
-        }
+        return UnitOfWork.run(() -> {
+            Movie movie = movieDAO.getMovieById(movieId);
+            if (movie == null) {
+                return false;
+            }
 
-        movie.setTitle(title);
-        movie.setDirector(director);
-        movie.setYear(year);
-        movie.setDescription(description);
-        movie.setDuration(duration);
-        movie.setPosterUrl(posterUrl);
+            movie.setTitle(title);
+            movie.setDirector(director);
+            movie.setYear(year);
+            movie.setDescription(description);
+            movie.setDuration(duration);
+            movie.setPosterUrl(posterUrl);
 
-        return movieDAO.updateMovie(movie);
+            return movieDAO.updateMovie(movie);
+        });
     }
 
     public boolean deleteMovie(int movieId) throws SQLException {
@@ -97,16 +112,15 @@ public class MovieService {
     }
 
     public boolean addGenresToMovie(int movieId, List<String> genreNames) throws SQLException {
-        List<Genre> genres = genreDAO.getGenresByNames(genreNames);
+        return UnitOfWork.run(() -> {
+            List<Genre> genres = genreDAO.getGenresByNames(genreNames);
 
-        boolean success = true;
-        for (Genre genre : genres) {
-            if (!genreDAO.addGenreToMovie(movieId, genre.getId())) {
-                success = false;
+            List<Integer> genreIds = new ArrayList<>();
+            for (Genre genre : genres) {
+                genreIds.add(genre.getId());
             }
-        }
-
-        return success;
+            return genreDAO.addGenresToMovie(movieId, genreIds) == genreIds.size();
+        });
     }
 
     public boolean removeGenreFromMovie(int movieId, int genreId) throws SQLException {
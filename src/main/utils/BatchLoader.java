@@ -0,0 +1,105 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+// Пакетная загрузка связанных данных для списка сущностей (в духе DataLoader).
+// Ключи сначала ставятся в очередь, первый get() забирает всю очередь одним запросом
+// на пачку до db.batchSize ключей вместо запроса на каждую сущность.
+// Загрузчик живет в пределах одного вызова сервиса и не потокобезопасен
+public class BatchLoader<K, V> {
+    private static final LongAdder batches = new LongAdder();
+    private static final LongAdder keys = new LongAdder();
+
+    @FunctionalInterface
+    public interface Batch<K, V> {
+        // Ключи без значения в результате получают значение по умолчанию
+        Map<K, V> load(List<K> keys) throws SQLException;
+    }
+
+    private final Batch<K, V> batch;
+    private final V absent;
+    private final int maxBatchSize;
+    private final Set<K> queue = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+
+    public BatchLoader(Batch<K, V> batch, V absent) {
+        this(batch, absent, ServerConfig.getDatabaseBatchSize());
+    }
+
+    public BatchLoader(Batch<K, V> batch, V absent, int maxBatchSize) {
+        this.batch = batch;
+        this.absent = absent;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public BatchLoader<K, V> enqueue(K key) {
+        if (!loaded.containsKey(key)) {
+            queue.add(key);
+        }
+        return this;
+    }
+
+    public BatchLoader<K, V> enqueueAll(Collection<? extends K> keys) {
+        for (K key : keys) {
+            enqueue(key);
+        }
+        return this;
+    }
+
+    public V get(K key) throws SQLException {
+        if (loaded.containsKey(key)) {
+            return loaded.get(key);
+        }
+        queue.add(key);
+        dispatch();
+        return loaded.get(key);
+    }
+
+    public Map<K, V> getAll(Collection<? extends K> keys) throws SQLException {
+        enqueueAll(keys);
+        dispatch();
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            result.put(key, loaded.get(key));
+        }
+        return result;
+    }
+
+    private void dispatch() throws SQLException {
+        if (queue.isEmpty()) {
+            return;
+        }
+        List<K> pending = new ArrayList<>(queue);
+        queue.clear();
+
+        for (int from = 0; from < pending.size(); from += maxBatchSize) {
+            List<K> chunk = pending.subList(from, Math.min(from + maxBatchSize, pending.size()));
+            Map<K, V> values = batch.load(chunk);
+            for (K key : chunk) {
+                V value = values.get(key);
+                loaded.put(key, value != null ? value : absent);
+            }
+            batches.increment();
+            keys.add(chunk.size());
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        long n = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", n);
+        stats.put("keys", keys.sum());
+        stats.put("avgBatchSize", n == 0 ? 0.0 : Math.round(keys.sum() * 10.0 / n) / 10.0);
+        return stats;
+    }
+}
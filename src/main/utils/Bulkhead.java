@@ -0,0 +1,121 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Отсек: свои потоки, своя ограниченная очередь и своя квота соединений с БД.
+// Тяжелые запросы админки занимают только свои потоки и соединения и не трогают витрину
+public class Bulkhead {
+    public static final Bulkhead ADMIN = new Bulkhead("admin");
+    public static final Bulkhead AUTH = new Bulkhead("auth");
+    public static final Bulkhead READ = new Bulkhead("read");
+    public static final Bulkhead WRITE = new Bulkhead("write");
+
+    private static final Bulkhead[] ALL = {ADMIN, AUTH, READ, WRITE};
+    private static final ThreadLocal<Bulkhead> current = new ThreadLocal<>();
+
+    private final String name;
+    private final ThreadPoolExecutor pool;
+    private final Executor executor;
+    private final int dbQuota;
+    private final Semaphore dbPermits;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dbTimeouts = new LongAdder();
+
+    private Bulkhead(String name) {
+        this.name = name;
+        int threads = ServerConfig.getBulkheadThreads(name);
+        int queueSize = ServerConfig.getBulkheadQueueSize(name);
+        AtomicInteger counter = new AtomicInteger();
+
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        current.set(this);
+                        runnable.run();
+                    }, "bulkhead-" + name + "-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.executor = ConcurrencyLimiter.timed(pool);
+
+        this.dbQuota = ServerConfig.getBulkheadDbConnections(name);
+        this.dbPermits = new Semaphore(dbQuota);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    // Бросает RejectedExecutionException, если очередь отсека заполнена
+    public void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    // Отсек, на потоке которого идет выполнение; null - фоновые задачи и потоки сервера
+    public static Bulkhead current() {
+        return current.get();
+    }
+
+    // Соединение из общего пула в пределах квоты отсека; квота освобождается при close()
+    Connection acquireConnection(ConnectionPool pool, long timeoutMillis) throws SQLException {
+        try {
+            if (!dbPermits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                dbTimeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "Database quota of bulkhead '" + name + "' exhausted (" + dbQuota + " connections)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection");
+        }
+
+        return pool.getConnection(dbPermits);
+    }
+
+    public static void shutdown() {
+        for (Bulkhead bulkhead : ALL) {
+            bulkhead.pool.shutdown();
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Bulkhead bulkhead : ALL) {
+            Map<String, Object> byBulkhead = new LinkedHashMap<>();
+            byBulkhead.put("threads", bulkhead.pool.getMaximumPoolSize());
+            byBulkhead.put("active", bulkhead.pool.getActiveCount());
+            byBulkhead.put("queueDepth", bulkhead.pool.getQueue().size());
+            byBulkhead.put("completed", bulkhead.pool.getCompletedTaskCount());
+            byBulkhead.put("rejected", bulkhead.rejected.sum());
+            byBulkhead.put("dbQuota", bulkhead.dbQuota);
+            byBulkhead.put("dbInUse", bulkhead.dbQuota - bulkhead.dbPermits.availablePermits());
+            byBulkhead.put("dbTimeouts", bulkhead.dbTimeouts.sum());
+            stats.put(bulkhead.name, byBulkhead);
+        }
+        return stats;
+    }
+}
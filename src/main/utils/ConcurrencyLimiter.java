@@ -0,0 +1,172 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Адаптивный предел одновременных запросов. Предел следует за задержкой: пока короткое окно
+// не медленнее долгосрочного среднего, он растет на sqrt(limit), при замедлении сжимается пропорционально.
+// Лишние запросы отклоняются сразу, а не ждут в очереди пула
+public class ConcurrencyLimiter {
+
+    // Доля предела, доступная классу: низкий приоритет отбрасывается первым
+    public enum Priority {
+        LOW(0.5), NORMAL(0.8), HIGH(1.0);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private static final boolean ENABLED = ServerConfig.isConcurrencyLimitEnabled();
+    private static final int MIN_LIMIT = ServerConfig.getConcurrencyMinLimit();
+    private static final int MAX_LIMIT = ServerConfig.getConcurrencyMaxLimit();
+    private static final long MAX_QUEUE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(ServerConfig.getMaxQueueWaitMillis());
+
+    private static final int WINDOW_SAMPLES = 50;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW = 600;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static volatile double limit = MAX_LIMIT;
+
+    // Время постановки задачи в очередь пула сервера - задержка считается от него, а не от начала обработки
+    private static final ThreadLocal<Long> enqueuedAt = new ThreadLocal<>();
+
+    private static final Object window = new Object();
+    private static long windowStart = System.nanoTime();
+    private static long windowSum;
+    private static int windowCount;
+    private static int windowMaxInFlight;
+    private static double longRtt;
+
+    private static final LongAdder[] accepted = new LongAdder[Priority.values().length];
+    private static final LongAdder[] shed = new LongAdder[Priority.values().length];
+    private static final LongAdder shedByQueueWait = new LongAdder();
+
+    static {
+        for (Priority priority : Priority.values()) {
+            accepted[priority.ordinal()] = new LongAdder();
+            shed[priority.ordinal()] = new LongAdder();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Пул (сервера или отсека), который помечает задачи временем постановки в очередь
+    public static Executor timed(Executor delegate) {
+        return task -> {
+            long submittedAt = System.nanoTime();
+            queued.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    queued.decrementAndGet();
+                    enqueuedAt.set(submittedAt);
+                    try {
+                        task.run();
+                    } finally {
+                        enqueuedAt.remove();
+                    }
+                });
+            } catch (RuntimeException e) {
+                queued.decrementAndGet();
+                throw e;
+            }
+        };
+    }
+
+    // Время начала запроса для release() или -1, если запрос нужно отклонить
+    public static long acquire(Priority priority) {
+        Long submittedAt = enqueuedAt.get();
+        long start = submittedAt != null ? submittedAt : System.nanoTime();
+
+        // Запрос, который простоял в очереди дольше допустимого, клиент уже почти не ждет
+        if (priority != Priority.HIGH && System.nanoTime() - start > MAX_QUEUE_WAIT_NANOS) {
+            shedByQueueWait.increment();
+            shed[priority.ordinal()].increment();
+            return -1;
+        }
+
+        int allowed = Math.max(1, (int) (limit * priority.share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                shed[priority.ordinal()].increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted[priority.ordinal()].increment();
+                return start;
+            }
+        }
+    }
+
+    public static void release(long start) {
+        int current = inFlight.getAndDecrement();
+        long rtt = System.nanoTime() - start;
+
+        synchronized (window) {
+            windowSum += rtt;
+            windowCount++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            long now = System.nanoTime();
+            if (windowCount >= WINDOW_SAMPLES || now - windowStart >= WINDOW_NANOS) {
+                updateLimit(windowSum / (double) windowCount, windowMaxInFlight);
+                windowStart = now;
+                windowSum = 0;
+                windowCount = 0;
+                windowMaxInFlight = 0;
+            }
+        }
+    }
+
+    private static void updateLimit(double shortRtt, int maxInFlight) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / LONG_WINDOW;
+        }
+        // После долгой перегрузки среднее завышено - возвращаем его к текущей задержке, иначе предел не сожмется снова
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        // Рост имеет смысл, только если предел действительно упирается в нагрузку
+        double growth = maxInFlight >= current / 2 ? Math.sqrt(current) : 0;
+        double target = current * gradient + growth;
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(MIN_LIMIT, Math.min(MAX_LIMIT, next));
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ENABLED);
+        stats.put("limit", Math.round(limit * 10) / 10.0);
+        stats.put("inFlight", inFlight.get());
+        stats.put("queued", queued.get());
+        synchronized (window) {
+            stats.put("longRttMs", Math.round(longRtt / 10_000.0) / 100.0);
+        }
+        stats.put("shedByQueueWait", shedByQueueWait.sum());
+        for (Priority priority : Priority.values()) {
+            Map<String, Object> byPriority = new LinkedHashMap<>();
+            byPriority.put("accepted", accepted[priority.ordinal()].sum());
+            byPriority.put("shed", shed[priority.ordinal()].sum());
+            stats.put(priority.name().toLowerCase(), byPriority);
+        }
+        return stats;
+    }
+}
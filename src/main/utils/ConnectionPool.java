@@ -0,0 +1,450 @@
+package main.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Пул соединений JDBC: close() у выданного соединения возвращает его в пул.
+// Число открытых соединений ограничено maxSize, простаивающие сверх minIdle закрываются по idleTimeout.
+// У каждого физического соединения свой кэш подготовленных запросов: close() у PreparedStatement
+// возвращает его в кэш, и повторный prepareStatement с тем же текстом не разбирает SQL заново
+public class ConnectionPool {
+    // Простоявшее дольше соединение проверяется перед выдачей: сервер БД мог его уже закрыть
+    private static final long VALIDATE_AFTER_MILLIS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minIdle;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Idle> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    // Последние удачное и неудачное обращения к БД - доступность без отдельного запроса
+    private volatile long lastSuccessAt = System.currentTimeMillis();
+    private volatile long lastFailureAt;
+    private volatile String lastError;
+
+    private static final class Idle {
+        final Connection connection;
+        final long since;
+
+        Idle(Connection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    public ConnectionPool(String url, String user, String password, int minIdle, int maxSize,
+                          long timeoutMillis, long idleTimeoutMillis, int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.timeoutMillis = timeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize);
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getConnection(null);
+    }
+
+    // quota - уже захваченное разрешение квоты отсека, оно освобождается вместе с соединением
+    public Connection getConnection(Semaphore quota) throws SQLException {
+        try {
+            return borrow(quota);
+        } catch (SQLException | RuntimeException e) {
+            if (quota != null) {
+                quota.release();
+            }
+            throw e;
+        }
+    }
+
+    private Connection borrow(Semaphore quota) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(
+                        "Connection pool exhausted: " + maxSize + " connections busy for " + timeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection");
+        }
+        totalWaitNanos.add(System.nanoTime() - start);
+
+        try {
+            Connection connection = takeIdle();
+            if (connection == null) {
+                connection = connect();
+            }
+            borrowed.increment();
+            return wrap(connection, quota);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            open.incrementAndGet();
+            created.increment();
+            return connection;
+        } catch (SQLException e) {
+            lastError = e.getMessage();
+            lastFailureAt = System.currentTimeMillis();
+            throw e;
+        }
+    }
+
+    private Connection takeIdle() {
+        Idle entry;
+        // Последнее возвращенное соединение - самое "теплое"
+        while ((entry = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - entry.since < VALIDATE_AFTER_MILLIS || isValid(entry.connection)) {
+                return entry.connection;
+            }
+            discard(entry.connection);
+        }
+        return null;
+    }
+
+    private void giveBack(Connection connection, boolean broken, Semaphore quota) {
+        if (quota != null) {
+            quota.release();
+        }
+        try {
+            if (broken || connection.isClosed()) {
+                lastFailureAt = System.currentTimeMillis();
+                discard(connection);
+                return;
+            }
+            // Незавершенная транзакция не должна достаться следующему владельцу
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (connection.isReadOnly()) {
+                connection.setReadOnly(false);
+            }
+            long now = System.currentTimeMillis();
+            idle.offerFirst(new Idle(connection, now));
+            lastSuccessAt = now;
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Закрывает соединения, простаивающие дольше idleTimeout, оставляя minIdle
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        while (idle.size() > minIdle) {
+            Idle oldest = idle.peekLast();
+            if (oldest == null || now - oldest.since < idleTimeoutMillis) {
+                return;
+            }
+            if (idle.removeLastOccurrence(oldest)) {
+                discard(oldest.connection);
+            }
+        }
+    }
+
+    public void close() {
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            discard(entry.connection);
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection connection) {
+        // Закрытие соединения закрывает и его подготовленные запросы
+        statementCaches.remove(connection);
+        open.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // После последней ошибки соединения было удачное обращение к БД
+    public boolean isAvailable() {
+        return lastFailureAt <= lastSuccessAt;
+    }
+
+    public long getLastSuccessAt() {
+        return lastSuccessAt;
+    }
+
+    // Активная проверка для монитора здоровья: простаивающее соединение проверяется драйвером,
+    // новое открывается, только если простаивающих нет или проверка не прошла. Свободного
+    // соединения не ждет: если все заняты, ответ - по последним обращениям
+    public boolean probe() {
+        if (!permits.tryAcquire()) {
+            return isAvailable();
+        }
+        Connection connection;
+        try {
+            Idle entry = idle.pollFirst();
+            if (entry != null && isValid(entry.connection)) {
+                connection = entry.connection;
+            } else {
+                if (entry != null) {
+                    discard(entry.connection);
+                }
+                connection = connect();
+            }
+        } catch (SQLException e) {
+            permits.release();
+            return false;
+        }
+        giveBack(connection, false, null);
+        return true;
+    }
+
+    public int inUse() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public Map<String, Object> getStats() {
+        long n = borrowed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxSize", maxSize);
+        stats.put("open", open.get());
+        stats.put("idle", idle.size());
+        stats.put("inUse", inUse());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("borrowed", n);
+        stats.put("created", created.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("available", isAvailable());
+        if (!isAvailable()) {
+            stats.put("lastError", lastError);
+        }
+        stats.put("avgWaitMs", n == 0 ? 0.0 : Math.round(totalWaitNanos.sum() / (double) n / 10_000.0) / 100.0);
+        stats.put("statementCacheHits", statementHits.sum());
+        stats.put("statementCacheMisses", statementMisses.sum());
+        return stats;
+    }
+
+    private Connection wrap(Connection connection, Semaphore quota) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledHandler(connection, quota));
+    }
+
+    private class PooledHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Semaphore quota;
+        private boolean closed;
+        private boolean broken;
+
+        PooledHandler(Connection connection, Semaphore quota) {
+            this.connection = connection;
+            this.quota = quota;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(connection, broken, quota);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            if (statementCacheSize > 0 && "prepareStatement".equals(method.getName())
+                    && args.length == 1 && !broken) {
+                return prepareCached((Connection) proxy, (String) args[0]);
+            }
+
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw failed(e.getCause());
+            }
+        }
+
+        private PreparedStatement prepareCached(Connection owner, String sql) throws Throwable {
+            StatementCache cache = statementCaches.computeIfAbsent(connection, c -> new StatementCache());
+            PreparedStatement statement = cache.take(sql);
+            if (statement != null) {
+                statementHits.increment();
+            } else {
+                statementMisses.increment();
+                try {
+                    statement = connection.prepareStatement(sql);
+                } catch (SQLException e) {
+                    throw failed(e);
+                }
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CachedStatementHandler(this, owner, cache, sql, statement));
+        }
+
+        // Класс 08 - обрыв связи: такое соединение в пул не возвращается
+        Throwable failed(Throwable cause) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                    && ((SQLException) cause).getSQLState().startsWith("08")) {
+                broken = true;
+            }
+            return cause;
+        }
+    }
+
+    // Подготовленные запросы одного физического соединения. Выданный запрос убирается из кэша,
+    // поэтому два одинаковых открытых запроса на одном соединении не делят один объект
+    private class StatementCache {
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        synchronized PreparedStatement take(String sql) {
+            return statements.remove(sql);
+        }
+
+        synchronized void give(String sql, PreparedStatement statement) {
+            PreparedStatement previous = statements.put(sql, statement);
+            if (previous != null) {
+                closeQuietly(previous);
+            }
+            if (statements.size() > statementCacheSize) {
+                Map.Entry<String, PreparedStatement> eldest = statements.entrySet().iterator().next();
+                statements.remove(eldest.getKey());
+                closeQuietly(eldest.getValue());
+            }
+        }
+    }
+
+    private class CachedStatementHandler implements InvocationHandler {
+        private final PooledHandler owner;
+        private final Connection connection;
+        private final StatementCache cache;
+        private final String sql;
+        private final PreparedStatement statement;
+        private boolean closed;
+
+        CachedStatementHandler(PooledHandler owner, Connection connection, StatementCache cache,
+                               String sql, PreparedStatement statement) {
+            this.owner = owner;
+            this.connection = connection;
+            this.cache = cache;
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw owner.failed(e.getCause());
+            }
+        }
+
+        // Следующий владелец получает запрос без параметров и таймаута прошлого вызова
+        private void release() {
+            if (owner.broken) {
+                closeQuietly(statement);
+                return;
+            }
+            try {
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.setQueryTimeout(0);
+                statement.clearWarnings();
+                cache.give(sql, statement);
+            } catch (SQLException e) {
+                closeQuietly(statement);
+            }
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -2,17 +2,50 @@ package main.utils;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.List;
 
 public class CookieManager {
+    // Сканирует заголовки Cookie без разбиения в карту; при повторе имени побеждает первое вхождение
     public static String getCookie(HttpExchange exchange, String name) {
-        Headers headers = exchange.getRequestHeaders();
-        if (headers.containsKey("Cookie")) {
-            String cookies = headers.getFirst("Cookie");
-            Map<String, String> cookieMap = parseCookies(cookies);
-            return cookieMap.get(name);
+        List<String> headers = exchange.getRequestHeaders().get("Cookie");
+        if (headers == null) {
+            return null;
+        }
+        for (String header : headers) {
+            String value = findCookie(header, name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    static String findCookie(String header, String name) {
+        int length = header.length();
+        int start = 0;
+        while (start < length) {
+            int end = header.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+            while (start < end && header.charAt(start) == ' ') {
+                start++;
+            }
+            int eq = header.indexOf('=', start);
+            if (eq > 0 && eq < end && eq - start == name.length() && header.regionMatches(start, name, 0, name.length())) {
+                int valueStart = eq + 1;
+                int valueEnd = end;
+                while (valueEnd > valueStart && header.charAt(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+                // Значение в кавычках допускается RFC 6265
+                if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+                return header.substring(valueStart, valueEnd);
+            }
+            start = end + 1;
         }
         return null;
     }
@@ -29,15 +62,4 @@ public class CookieManager {
         String cookie = String.format("%s=; Path=/; HttpOnly; Max-Age=0", name);
         headers.add("Set-Cookie", cookie);
     }
-
-    private static Map<String, String> parseCookies(String cookieString) {
-        return Arrays.stream(cookieString.split(";"))
-                .map(String::trim)
-                .map(cookie -> cookie.split("=", 2))
-                .filter(parts -> parts.length == 2)
-                .collect(Collectors.toMap(
-                        parts -> parts[0],
-                        parts -> parts[1]
-                ));
-    }
 }
\ No newline at end of file
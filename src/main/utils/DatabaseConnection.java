@@ -1,24 +1,116 @@
 package main.utils;
 
+import main.config.ServerConfig;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/movie_db?useSSL=false&serverTimezone=UTC";
-    private static final String USER = "root";
-    private static final String PASSWORD = "admin123";
+    private static final boolean INSTRUMENTED = ServerConfig.isQueryInstrumentationEnabled();
+    private static final long TIMEOUT_MILLIS = ServerConfig.getDatabaseConnectionTimeout();
+    private static final ConnectionPool pool;
 
     static {
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+        // Остальные драйверы (например, встроенная БД нагрузочного стенда) регистрируются сами
+        if (ServerConfig.getDatabaseUrl().startsWith("jdbc:mysql:")) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                e.printStackTrace();
+            }
         }
+
+        pool = new ConnectionPool(
+                ServerConfig.getDatabaseUrl(),
+                ServerConfig.getDatabaseUser(),
+                ServerConfig.getDatabasePassword(),
+                ServerConfig.getDatabasePoolSize(),
+                ServerConfig.getDatabaseMaxPoolSize(),
+                TIMEOUT_MILLIS,
+                ServerConfig.getDatabaseIdleTimeout(),
+                ServerConfig.getDatabaseStatementCacheSize());
+
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleAtFixedRate(pool::evictIdle, 60, 60, TimeUnit.SECONDS);
     }
 
+    // На потоке отсека соединение берется в пределах его квоты, иначе - просто из общего пула.
+    // Внутри HTTP-запроса запросы к БД ограничены его сроком, внутри единицы работы соединение общее
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        Connection joined = UnitOfWork.joined(true);
+        if (joined != null) {
+            return joined;
+        }
+        Bulkhead bulkhead = Bulkhead.current();
+        Connection connection = bulkhead != null
+                ? bulkhead.acquireConnection(pool, TIMEOUT_MILLIS)
+                : pool.getConnection();
+        return decorate(connection);
+    }
+
+    private static Connection decorate(Connection connection) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            connection = deadline.wrap(connection);
+        }
+        return INSTRUMENTED ? InstrumentedConnection.wrap(connection) : connection;
+    }
+
+    // Для запросов только на чтение: реплика, если она есть и подходит, иначе основная БД
+    public static Connection getReadConnection() throws SQLException {
+        Connection joined = UnitOfWork.joined(false);
+        if (joined != null) {
+            return joined;
+        }
+        return openRead(ReplicaRouter.choose());
+    }
+
+    // Соединение с выбранной реплики; null - с основной БД
+    static Connection openRead(ConnectionPool replica) throws SQLException {
+        if (replica == null) {
+            return getConnection();
+        }
+        Bulkhead bulkhead = Bulkhead.current();
+        Connection connection = bulkhead != null
+                ? bulkhead.acquireConnection(replica, TIMEOUT_MILLIS)
+                : replica.getConnection();
+        return decorate(connection);
+    }
+
+    // Чтение, которому нужна именно основная БД (например, результат кэшируется надолго).
+    // Внутри единицы работы на основной БД берется ее соединение: второе соединение заняло бы
+    // еще один слот квоты отсека, пока первый удерживается
+    public static Connection getPrimaryReadConnection() throws SQLException {
+        Connection joined = UnitOfWork.joinedPrimary();
+        return joined != null ? joined : getConnection();
+    }
+
+    public static boolean isAvailable() {
+        return pool.isAvailable();
+    }
+
+    // Проверка основной БД, если к ней давно не обращались или последнее обращение было неудачным
+    public static boolean probe(long idleMillis) {
+        if (pool.isAvailable() && System.currentTimeMillis() - pool.getLastSuccessAt() < idleMillis) {
+            return true;
+        }
+        return pool.probe();
+    }
+
+    public static Map<String, Object> getPoolStats() {
+        return pool.getStats();
+    }
+
+    public static void shutdown() {
+        ReplicaRouter.shutdown();
+        pool.close();
     }
 
     public static void closeConnection(Connection conn) {
@@ -0,0 +1,343 @@
+package main.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Сессии в памяти плюс локальный диск: компактный бинарный снимок и журнал изменений после него.
+// Восстановление = снимок + журнал по порядку; при сжатии журнал ротируется до записи нового снимка.
+// Журнал пишет один фоновый поток: запросы только ставят запись в очередь, а поток сбрасывает
+// на диск все накопившееся разом. При переполнении очереди пропускаются только сохранения:
+// потерянное удаление вернуло бы при восстановлении закрытую или отозванную сессию
+public class FileSessionStore implements SessionStore {
+    private static final int MAGIC = 0x53455353; // "SESS"
+    private static final int VERSION = 1;
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte ID_UUID = 1;
+    private static final byte ID_TEXT = 2;
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 1024;
+
+    private interface LogOp {
+        void apply() throws IOException;
+    }
+
+    private static final LogOp STOP = () -> { };
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path rotatedLogFile;
+    // Без предела емкости: предел QUEUE_CAPACITY проверяется только для сохранений
+    private final BlockingQueue<LogOp> pending = new LinkedBlockingQueue<>();
+    private final LongAdder dropped = new LongAdder();
+    private Thread writer;
+    private volatile boolean closed;
+    // Только на потоке записи
+    private DataOutputStream log;
+
+    public FileSessionStore(String directory) {
+        Path dir = Paths.get(directory);
+        this.snapshotFile = dir.resolve("sessions.snap");
+        this.logFile = dir.resolve("sessions.log");
+        this.rotatedLogFile = dir.resolve("sessions.log.old");
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public CompletableFuture<Void> restore(BiConsumer<String, StoredSession> sink) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                readSnapshot(sink);
+                // Журнал, оставшийся от прерванного сжатия, старше текущего
+                replayLog(rotatedLogFile, sink);
+                replayLog(logFile, sink);
+                done.complete(null);
+            } catch (Exception e) {
+                System.err.println("⚠️ Не удалось восстановить сессии: " + e.getMessage());
+                done.complete(null);
+            }
+        }, "session-restore");
+        thread.setDaemon(true);
+        thread.start();
+        return done;
+    }
+
+    @Override
+    public StoredSession load(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public void save(String sessionId, StoredSession session) {
+        enqueue(true, () -> {
+            DataOutputStream out = log();
+            out.writeByte(OP_SAVE);
+            writeId(out, sessionId);
+            session.writeTo(out);
+        });
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        enqueue(false, () -> {
+            DataOutputStream out = log();
+            out.writeByte(OP_REMOVE);
+            writeId(out, sessionId);
+        });
+    }
+
+    @Override
+    public void compact(Iterator<Map.Entry<String, StoredSession>> live) {
+        if (closed) {
+            return;
+        }
+        try {
+            // Ротация идет в очереди после уже поставленных записей: они останутся в старом журнале,
+            // все последующие попадут в новый и переиграются поверх снимка
+            CompletableFuture<Void> rotated = new CompletableFuture<>();
+            submit(() -> {
+                try {
+                    closeLog();
+                    if (Files.exists(logFile)) {
+                        Files.move(logFile, rotatedLogFile, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    rotated.complete(null);
+                } catch (IOException e) {
+                    rotated.completeExceptionally(e);
+                }
+            });
+            rotated.join();
+
+            Files.createDirectories(snapshotFile.getParent());
+            Path tmp = snapshotFile.resolveSibling("sessions.snap.tmp");
+            long now = System.currentTimeMillis();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                while (live.hasNext()) {
+                    Map.Entry<String, StoredSession> entry = live.next();
+                    if (entry.getValue().getExpiryTime() > now) {
+                        out.writeByte(OP_SAVE);
+                        writeId(out, entry.getKey());
+                        entry.getValue().writeTo(out);
+                    }
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(rotatedLogFile);
+        } catch (IOException e) {
+            logFailure(e);
+        } catch (CompletionException e) {
+            logFailure(e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause()));
+        }
+    }
+
+    // Дописывает очередь и закрывает журнал
+    @Override
+    public void close() {
+        Thread current;
+        synchronized (this) {
+            closed = true;
+            current = writer;
+        }
+        if (current == null) {
+            return;
+        }
+        submit(STOP);
+        try {
+            current.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Переполненная очередь значит, что диск не успевает; сохранение сессии пропускается, запрос не ждет.
+    // Удаления в очередь ставятся всегда - их не больше, чем открытых сессий
+    private void enqueue(boolean droppable, LogOp op) {
+        if (closed) {
+            return;
+        }
+        startWriter();
+        if (droppable && pending.size() >= QUEUE_CAPACITY) {
+            dropped.increment();
+            if (dropped.sum() % 1000 == 1) {
+                System.err.println("⚠️ Очередь журнала сессий переполнена, пропущено сохранений: " + dropped.sum());
+            }
+            return;
+        }
+        pending.add(op);
+    }
+
+    // Ротация и остановка не пропускаются: их ждут фоновые потоки, а не запросы
+    private void submit(LogOp op) {
+        startWriter();
+        try {
+            pending.put(op);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private synchronized void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        writer = new Thread(this::writeLoop, "session-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void writeLoop() {
+        List<LogOp> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.drainTo(batch, BATCH_SIZE);
+            for (LogOp op : batch) {
+                try {
+                    if (op == STOP) {
+                        closeLog();
+                        return;
+                    }
+                    op.apply();
+                } catch (IOException e) {
+                    logFailure(e);
+                }
+            }
+            batch.clear();
+            try {
+                if (log != null) {
+                    log.flush();
+                }
+            } catch (IOException e) {
+                logFailure(e);
+            }
+        }
+    }
+
+    private void readSnapshot(BiConsumer<String, StoredSession> sink) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = open(snapshotFile)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format: " + snapshotFile);
+            }
+            replay(in, sink);
+        }
+    }
+
+    private void replayLog(Path file, BiConsumer<String, StoredSession> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = open(file)) {
+            replay(in, sink);
+        }
+    }
+
+    // Удаление передается в sink как null
+    private void replay(DataInputStream in, BiConsumer<String, StoredSession> sink) throws IOException {
+        while (true) {
+            int op = in.read();
+            if (op < 0) {
+                return;
+            }
+            try {
+                String sessionId = readId(in);
+                sink.accept(sessionId, op == OP_SAVE ? StoredSession.readFrom(in) : null);
+            } catch (EOFException e) {
+                // Оборванная последняя запись после аварийной остановки
+                return;
+            }
+        }
+    }
+
+    private DataOutputStream log() throws IOException {
+        if (log == null) {
+            Files.createDirectories(logFile.getParent());
+            log = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+        return log;
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    // Идентификаторы-UUID занимают 16 байт вместо 36 символов
+    private static void writeId(DataOutputStream out, String sessionId) throws IOException {
+        UUID uuid = parseUuid(sessionId);
+        if (uuid != null) {
+            out.writeByte(ID_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(ID_TEXT);
+            out.writeUTF(sessionId);
+        }
+    }
+
+    private static String readId(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == ID_UUID) {
+            return new UUID(in.readLong(), in.readLong()).toString();
+        }
+        return in.readUTF();
+    }
+
+    private static UUID parseUuid(String sessionId) {
+        if (sessionId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(sessionId);
+            return uuid.toString().equals(sessionId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void logFailure(IOException e) {
+        System.err.println("⚠️ Ошибка записи хранилища сессий: " + e.getMessage());
+    }
+}
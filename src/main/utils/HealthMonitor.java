@@ -0,0 +1,172 @@
+package main.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.config.ServerConfig;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Готовность узла для балансировщика. Проверки идут в фоне раз в server.health.probeIntervalMs,
+// а /health/ready отдает последний готовый ответ: проба не открывает соединений с БД и не собирает JSON.
+// DOWN (503): запуск не закончен или основная БД недоступна. DEGRADED (200): отсеки отклоняют
+// задачи или пул соединений отдает таймауты; с server.health.failOnSaturation это тоже 503
+public class HealthMonitor {
+    private static final long INTERVAL_MILLIS = ServerConfig.getHealthProbeIntervalMillis();
+    private static final boolean FAIL_ON_SATURATION = ServerConfig.isHealthFailOnSaturation();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static volatile Snapshot snapshot = new Snapshot(503, "STARTING", Map.of(),
+            "{\"status\":\"STARTING\"}".getBytes(StandardCharsets.UTF_8));
+    private static ScheduledExecutorService scheduler;
+
+    // Счетчики прошлой проверки: насыщение - это рост отказов за интервал, а не их сумма с запуска
+    private static final Map<String, Long> previous = new HashMap<>();
+
+    public static final class Snapshot {
+        private final int httpStatus;
+        private final String status;
+        private final Map<String, Object> checks;
+        private final byte[] body;
+
+        Snapshot(int httpStatus, String status, Map<String, Object> checks, byte[] body) {
+            this.httpStatus = httpStatus;
+            this.status = status;
+            this.checks = checks;
+            this.body = body;
+        }
+
+        public int getHttpStatus() { return httpStatus; }
+        public String getStatus() { return status; }
+        public Map<String, Object> getChecks() { return checks; }
+        public byte[] getBody() { return body; }
+    }
+
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(HealthMonitor::refresh, 0, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public static Snapshot current() {
+        return snapshot;
+    }
+
+    // Вызывается по расписанию и сразу по окончании запуска, чтобы готовность не ждала интервала
+    static synchronized void refresh() {
+        try {
+            snapshot = evaluate();
+        } catch (RuntimeException | JsonProcessingException e) {
+            // Ошибка самой проверки - узел лучше снять с балансировки, чем отвечать устаревшим UP
+            System.err.println("⚠️ Проверка здоровья не выполнена: " + e.getMessage());
+            snapshot = new Snapshot(503, "DOWN", Map.of(),
+                    "{\"status\":\"DOWN\"}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Snapshot evaluate() throws JsonProcessingException {
+        Map<String, Object> checks = new LinkedHashMap<>();
+        boolean down = false;
+        boolean saturated = false;
+
+        boolean started = Startup.isReady();
+        checks.put("startup", started ? "UP" : "STARTING");
+        down |= !started;
+
+        // До окончания запуска БД не трогаем: схема может еще создаваться
+        Map<String, Object> database = new LinkedHashMap<>();
+        Map<String, Object> pool = DatabaseConnection.getPoolStats();
+        boolean dbUp = started && DatabaseConnection.probe(INTERVAL_MILLIS);
+        long poolTimeouts = delta("db.timeouts", number(pool, "timeouts"));
+        database.put("status", !started ? "UNKNOWN" : dbUp ? "UP" : "DOWN");
+        database.put("inUse", pool.get("inUse"));
+        database.put("maxSize", pool.get("maxSize"));
+        database.put("waiting", pool.get("waiting"));
+        database.put("timeouts", poolTimeouts);
+        checks.put("database", database);
+        down |= started && !dbUp;
+        saturated |= poolTimeouts > 0;
+
+        Map<String, Object> executors = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : Bulkhead.getStats().entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> stats = (Map<String, Object>) entry.getValue();
+            long rejected = delta("bulkhead." + entry.getKey(), number(stats, "rejected"));
+            Map<String, Object> executor = new LinkedHashMap<>();
+            executor.put("active", stats.get("active"));
+            executor.put("threads", stats.get("threads"));
+            executor.put("queueDepth", stats.get("queueDepth"));
+            executor.put("rejected", rejected);
+            executors.put(entry.getKey(), executor);
+            saturated |= rejected > 0;
+        }
+        Map<String, Object> hashing = PasswordHasher.getStats();
+        long hashRejected = delta("passwordHasher", number(hashing, "rejected"));
+        executors.put("passwordHasher", Map.of(
+                "active", hashing.get("active"),
+                "threads", hashing.get("threads"),
+                "queueDepth", hashing.get("queueDepth"),
+                "rejected", hashRejected));
+        checks.put("executors", executors);
+
+        Map<String, Object> concurrency = ConcurrencyLimiter.getStats();
+        checks.put("queues", Map.of(
+                "serverQueued", concurrency.get("queued"),
+                "inFlight", concurrency.get("inFlight"),
+                "limit", concurrency.get("limit"),
+                "dbWaiting", pool.get("waiting")));
+
+        // Холодные кэши готовности не мешают, только видны в ответе
+        checks.put("caches", Map.of("warm", Startup.isDone("warmup")));
+
+        String status;
+        int httpStatus;
+        if (down || saturated && FAIL_ON_SATURATION) {
+            status = "DOWN";
+            httpStatus = 503;
+        } else {
+            status = saturated ? "DEGRADED" : "UP";
+            httpStatus = 200;
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("checks", checks);
+        body.put("checkedAt", System.currentTimeMillis());
+        return new Snapshot(httpStatus, status, checks, mapper.writeValueAsBytes(body));
+    }
+
+    private static long delta(String key, long current) {
+        Long before = previous.put(key, current);
+        return before == null ? 0 : current - before;
+    }
+
+    private static long number(Map<String, Object> stats, String key) {
+        Object value = stats.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    public static Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("status", current.getStatus());
+        stats.put("checks", current.getChecks());
+        return stats;
+    }
+}
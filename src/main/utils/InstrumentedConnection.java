@@ -0,0 +1,175 @@
+package main.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Обертка над JDBC: замеряет каждый execute* и считает прочитанные строки (см. QueryStats, SlowQueryLog)
+public class InstrumentedConnection {
+
+    public static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedConnection.invoke(connection, method, args);
+
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return wrapStatement((Statement) result, (String) args[0], PreparedStatement.class);
+                case "prepareCall":
+                    return wrapStatement((Statement) result, (String) args[0], CallableStatement.class);
+                case "createStatement":
+                    return wrapStatement((Statement) result, null, Statement.class);
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static Statement wrapStatement(Statement statement, String sql, Class<? extends Statement> type) {
+        return (Statement) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{type},
+                new StatementHandler(statement, sql));
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final List<String> paramTypes = new ArrayList<>();
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                rememberParamType((Integer) args[0], name.substring(3));
+            } else if ("clearParameters".equals(name)) {
+                paramTypes.clear();
+            }
+
+            if (!name.startsWith("execute")) {
+                Object result = InstrumentedConnection.invoke(statement, method, args);
+                if (result instanceof ResultSet && "getResultSet".equals(name)) {
+                    return wrapResultSet((ResultSet) result, QueryStats.entryFor(sqlFor(args)));
+                }
+                return result;
+            }
+
+            String sql = sqlFor(args);
+            QueryStats.Entry entry = QueryStats.entryFor(sql);
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                Object result = InstrumentedConnection.invoke(statement, method, args);
+                if (result instanceof ResultSet) {
+                    return wrapResultSet((ResultSet) result, entry);
+                }
+                return result;
+            } catch (Throwable t) {
+                failed = true;
+                throw t;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                QueryStats.record(entry, elapsed, failed);
+                if (SlowQueryLog.isSlow(elapsed)) {
+                    SlowQueryLog.log(sql, new ArrayList<>(paramTypes), elapsed, failed);
+                }
+            }
+        }
+
+        private String sqlFor(Object[] args) {
+            // У Statement текст запроса передается в execute*, у PreparedStatement - при подготовке
+            if (preparedSql != null) {
+                return preparedSql;
+            }
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return (String) args[0];
+            }
+            return "<batch>";
+        }
+
+        private void rememberParamType(int index, String type) {
+            while (paramTypes.size() < index) {
+                paramTypes.add("?");
+            }
+            paramTypes.set(index - 1, type);
+        }
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet, QueryStats.Entry entry) {
+        return (ResultSet) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new ResultSetHandler(resultSet, entry));
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryStats.Entry entry;
+        private long rows;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet resultSet, QueryStats.Entry entry) {
+            this.resultSet = resultSet;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            Object result = InstrumentedConnection.invoke(resultSet, method, args);
+
+            if ("next".equals(name)) {
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else {
+                    report();
+                }
+            } else if ("close".equals(name)) {
+                report();
+            }
+            return result;
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                QueryStats.recordRows(entry, rows);
+            }
+        }
+    }
+}
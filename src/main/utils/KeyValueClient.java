@@ -0,0 +1,11 @@
+package main.utils;
+
+// Минимальный клиент внешнего key-value хранилища (Redis, Memcached и т.п.) для сессий
+public interface KeyValueClient {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, long ttlMillis);
+
+    void delete(String key);
+}
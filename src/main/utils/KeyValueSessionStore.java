@@ -0,0 +1,97 @@
+package main.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+// Сессии во внешнем key-value хранилище с TTL. Полного восстановления нет: после перезапуска
+// сессия подтягивается по первому запросу с ее cookie
+public class KeyValueSessionStore implements SessionStore {
+    private static final String KEY_PREFIX = "session:";
+    private static final String REVOKED_PREFIX = "revoked:";
+
+    private final KeyValueClient client;
+
+    public KeyValueSessionStore(KeyValueClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String name() {
+        return "kv";
+    }
+
+    @Override
+    public CompletableFuture<Void> restore(BiConsumer<String, StoredSession> sink) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public StoredSession load(String sessionId) {
+        byte[] bytes = client.get(KEY_PREFIX + sessionId);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return StoredSession.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void save(String sessionId, StoredSession session) {
+        long ttl = session.getExpiryTime() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            remove(sessionId);
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            session.writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        client.put(KEY_PREFIX + sessionId, bytes.toByteArray(), ttl);
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        client.delete(KEY_PREFIX + sessionId);
+    }
+
+    @Override
+    public boolean sharesRevocations() {
+        return true;
+    }
+
+    @Override
+    public void revoke(String key, long revokedAt, long ttlMillis) {
+        if (ttlMillis > 0) {
+            client.put(REVOKED_PREFIX + key, ByteBuffer.allocate(Long.BYTES).putLong(revokedAt).array(), ttlMillis);
+        }
+    }
+
+    @Override
+    public Long revokedAt(String key) {
+        byte[] bytes = client.get(REVOKED_PREFIX + key);
+        return bytes != null && bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : null;
+    }
+
+    @Override
+    public void compact(Iterator<Map.Entry<String, StoredSession>> live) {
+        // Истечение обеспечивает TTL самого хранилища
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,42 @@
+package main.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Локальная замена внешнего хранилища для разработки: та же семантика TTL, но данные в памяти процесса
+public class LocalKeyValueClient implements KeyValueClient {
+    private static final Map<String, Value> values = new ConcurrentHashMap<>();
+
+    private static class Value {
+        final byte[] bytes;
+        final long expiresAt;
+
+        Value(byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Value value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.expiresAt <= System.currentTimeMillis()) {
+            values.remove(key, value);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis) {
+        values.put(key, new Value(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public void delete(String key) {
+        values.remove(key);
+    }
+}
@@ -0,0 +1,41 @@
+package main.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+// Прежнее поведение: сессии живут только в памяти процесса
+public class MemorySessionStore implements SessionStore {
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public CompletableFuture<Void> restore(BiConsumer<String, StoredSession> sink) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public StoredSession load(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public void save(String sessionId, StoredSession session) {
+    }
+
+    @Override
+    public void remove(String sessionId) {
+    }
+
+    @Override
+    public void compact(Iterator<Map.Entry<String, StoredSession>> live) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -1,10 +1,72 @@
 package main.utils;
 
+import main.config.ServerConfig;
 import org.mindrot.jbcrypt.BCrypt;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 public class PasswordHasher {
+    // bcrypt занимает ядро на сотни миллисекунд, поэтому считаем его на отдельном пуле
+    // размером с число процессоров, а не на потоках HTTP-сервера
+    private static final ThreadPoolExecutor pool = createPool();
+    private static final long maxWaitNanos = ServerConfig.getPasswordHashMaxWaitMillis() * 1_000_000L;
+
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final LongAdder totalNanos = new LongAdder();
+    private static final LongAdder totalQueueNanos = new LongAdder();
+    private static final AtomicLong maxNanos = new AtomicLong();
+    private static final AtomicLong maxQueueNanos = new AtomicLong();
+
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+    private static volatile int targetCost;
+
+    // Недавние успешные проверки: ключ - HMAC(пароль + хэш) на случайном ключе процесса,
+    // значение - время истечения. Смена пароля меняет хэш, и старые записи становятся недостижимы
+    private static final byte[] cacheKey = new byte[32];
+    private static final Map<String, Long> verified = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > ServerConfig.getPasswordCacheMaxSize();
+        }
+    };
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+
+    static {
+        new SecureRandom().nextBytes(cacheKey);
+    }
+
+    // Пул переполнен: вызывающий должен ответить 503, а не ждать
+    public static class OverloadedException extends RejectedExecutionException {
+        private static final long serialVersionUID = 1L;
+
+        public OverloadedException(String message) {
+            super(message);
+        }
+    }
+
     public static String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt(12));
+        return BCrypt.hashpw(password, BCrypt.gensalt(getTargetCost()));
     }
 
     public static boolean checkPassword(String password, String hashed) {
@@ -14,4 +76,200 @@ public class PasswordHasher {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    public static CompletableFuture<String> hashPasswordAsync(String password) {
+        return submit(() -> hashPassword(password));
+    }
+
+    public static CompletableFuture<Boolean> checkPasswordAsync(String password, String hashed) {
+        long ttl = ServerConfig.getPasswordCacheTtlMillis();
+        if (ttl <= 0 || hashed == null) {
+            return submit(() -> checkPassword(password, hashed));
+        }
+
+        String key = cacheKey(password, hashed);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Long expiresAt = verified.get(key);
+            if (expiresAt != null && expiresAt > now) {
+                cacheHits.increment();
+                return CompletableFuture.completedFuture(true);
+            }
+        }
+        cacheMisses.increment();
+
+        // Кэшируются только успешные проверки, чтобы перебор паролей не вытеснял настоящих пользователей
+        return submit(() -> {
+            boolean matches = checkPassword(password, hashed);
+            if (matches) {
+                synchronized (verified) {
+                    verified.put(key, System.currentTimeMillis() + ttl);
+                }
+            }
+            return matches;
+        });
+    }
+
+    // Результат на потоке запроса. Ожидание в очереди пула ограничено maxWaitMs (дальше OverloadedException),
+    // общее ожидание - остатком срока запроса; TimeoutException - срок истек
+    public static <T> T await(CompletableFuture<T> future) throws TimeoutException {
+        RequestDeadline deadline = RequestDeadline.current();
+        long timeoutMillis = deadline != null ? deadline.remainingMillis() : ServerConfig.getRequestTimeoutMillis("auth");
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OverloadedException("Interrupted while waiting for password hashing");
+        }
+    }
+
+    // Хэш дешевле целевого пересчитывается при следующем успешном входе. Только вверх: при
+    // калибровке узлы могут получить разную стоимость и иначе перехэшировали бы одного пользователя по кругу
+    public static boolean needsRehash(String hashed) {
+        int cost = costOf(hashed);
+        return cost > 0 && cost < getTargetCost();
+    }
+
+    public static int getTargetCost() {
+        int cost = targetCost;
+        if (cost == 0) {
+            synchronized (PasswordHasher.class) {
+                if (targetCost == 0) {
+                    int configured = ServerConfig.getPasswordHashCost();
+                    targetCost = configured > 0 ? configured : calibrateCost(ServerConfig.getPasswordHashTargetMillis());
+                }
+                cost = targetCost;
+            }
+        }
+        return cost;
+    }
+
+    // Подбирает стоимость, при которой одна проверка занимает около targetMillis на этом железе.
+    // Каждая единица стоимости удваивает время, поэтому достаточно замерить минимальную
+    private static int calibrateCost(long targetMillis) {
+        String sample = BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.checkpw("calibration", sample);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double millis = Math.max(best / 1_000_000.0, 0.1);
+        int cost = MIN_COST + (int) Math.round(Math.log(targetMillis / millis) / Math.log(2));
+        cost = Math.max(MIN_COST, Math.min(MAX_COST, cost));
+
+        System.out.printf("🔐 Стоимость bcrypt откалибрована: %d (~%.0f мс на проверку)%n",
+                cost, millis * (1L << (cost - MIN_COST)));
+        return cost;
+    }
+
+    private static int costOf(String hashed) {
+        // Формат: $2a$12$<соль и хэш>
+        if (hashed == null || hashed.length() < 7 || hashed.charAt(0) != '$' || hashed.charAt(3) != '$') {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(hashed.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String cacheKey(String password, String hashed) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(cacheKey, "HmacSHA256"));
+            mac.update(hashed.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                // Клиент, прождавший в очереди слишком долго, скорее всего уже ушел - не тратим на него ядро
+                if (startedAt - queuedAt > maxWaitNanos) {
+                    rejected.increment();
+                    future.completeExceptionally(new OverloadedException("Password hashing queue wait exceeded"));
+                    return;
+                }
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    long finishedAt = System.nanoTime();
+                    record(startedAt - queuedAt, finishedAt - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(new OverloadedException("Password hashing queue is full"));
+        }
+        return future;
+    }
+
+    private static void record(long queueNanos, long workNanos) {
+        completed.increment();
+        totalNanos.add(workNanos);
+        totalQueueNanos.add(queueNanos);
+        maxNanos.accumulateAndGet(workNanos, Math::max);
+        maxQueueNanos.accumulateAndGet(queueNanos, Math::max);
+    }
+
+    public static Map<String, Object> getStats() {
+        long n = completed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", pool.getMaximumPoolSize());
+        stats.put("active", pool.getActiveCount());
+        stats.put("queueDepth", pool.getQueue().size());
+        stats.put("queueCapacity", pool.getQueue().size() + pool.getQueue().remainingCapacity());
+        stats.put("completed", n);
+        stats.put("rejected", rejected.sum());
+        stats.put("avgHashMs", n == 0 ? 0.0 : Math.round(totalNanos.sum() / (double) n / 10_000.0) / 100.0);
+        stats.put("maxHashMs", Math.round(maxNanos.get() / 10_000.0) / 100.0);
+        stats.put("avgQueueMs", n == 0 ? 0.0 : Math.round(totalQueueNanos.sum() / (double) n / 10_000.0) / 100.0);
+        stats.put("maxQueueMs", Math.round(maxQueueNanos.get() / 10_000.0) / 100.0);
+        stats.put("cost", getTargetCost());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("cacheMisses", cacheMisses.sum());
+        synchronized (verified) {
+            stats.put("cacheSize", verified.size());
+        }
+        return stats;
+    }
+
+    public static void shutdown() {
+        pool.shutdown();
+    }
+
+    private static ThreadPoolExecutor createPool() {
+        int threads = ServerConfig.getPasswordHashThreads();
+        int queueSize = ServerConfig.getPasswordHashQueueSize();
+        AtomicInteger counter = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize > 0 ? queueSize : threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,188 @@
+package main.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class QueryStats {
+    private static final Map<String, Entry> stats = new ConcurrentHashMap<>();
+    private static final Map<String, String> normalizedCache = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_SQL = 2048;
+    private static final int MAX_TRACKED_QUERIES = 1024;
+    private static final String OVERFLOW_KEY = "<other>";
+
+    // Верхние границы корзин гистограммы в миллисекундах (последняя - всё, что больше)
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    public static class Entry {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, boolean failed) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            histogram.incrementAndGet(bucketIndex(nanos / 1_000_000));
+        }
+
+        void addRows(long fetched) {
+            rows.add(fetched);
+        }
+
+        public String getSql() { return sql; }
+        public long getCount() { return count.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getRows() { return rows.sum(); }
+        public double getTotalMillis() { return totalNanos.sum() / 1_000_000.0; }
+        public double getMaxMillis() { return maxNanos.get() / 1_000_000.0; }
+
+        public double getAverageMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : getTotalMillis() / n;
+        }
+
+        public long[] getHistogram() {
+            long[] copy = new long[histogram.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = histogram.get(i);
+            }
+            return copy;
+        }
+    }
+
+    public static Entry entryFor(String rawSql) {
+        String key = normalize(rawSql);
+        Entry entry = stats.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        // Защита от неограниченного роста при динамически собранных запросах
+        if (stats.size() >= MAX_TRACKED_QUERIES) {
+            return stats.computeIfAbsent(OVERFLOW_KEY, Entry::new);
+        }
+        return stats.computeIfAbsent(key, Entry::new);
+    }
+
+    public static void record(Entry entry, long nanos, boolean failed) {
+        entry.record(nanos, failed);
+    }
+
+    public static void recordRows(Entry entry, long fetched) {
+        entry.addRows(fetched);
+    }
+
+    public static List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>(stats.values());
+        entries.sort(Comparator.comparingDouble(Entry::getTotalMillis).reversed());
+        return entries;
+    }
+
+    public static long[] getBucketBoundsMillis() {
+        return BUCKET_BOUNDS_MS.clone();
+    }
+
+    public static void reset() {
+        stats.clear();
+    }
+
+    static int bucketIndex(long millis) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (millis < BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    // Приводит SQL к общему виду: литералы -> ?, списки IN (?, ?, ...) -> IN (?+), пробелы схлопываются
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String cached = normalizedCache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+
+            if (c == '\'' || c == '"') {
+                // Строковый литерал (с учетом экранирования удвоением кавычки)
+                int j = i + 1;
+                while (j < length) {
+                    if (sql.charAt(j) == c) {
+                        if (j + 1 < length && sql.charAt(j + 1) == c) {
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (sql.charAt(j) == '\\') {
+                        j++;
+                    }
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else if (Character.isDigit(c) && !isIdentifierChar(out)) {
+                int j = i;
+                while (j + 1 < length && (Character.isDigit(sql.charAt(j + 1)) || sql.charAt(j + 1) == '.')) {
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else {
+                out.append(c);
+            }
+        }
+
+        String normalized = collapseInLists(out.toString());
+        if (normalizedCache.size() < MAX_CACHED_SQL) {
+            normalizedCache.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    private static boolean isIdentifierChar(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char prev = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(prev) || prev == '_' || prev == '$';
+    }
+
+    private static String collapseInLists(String sql) {
+        return sql.replaceAll("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)", "(?+)");
+    }
+}
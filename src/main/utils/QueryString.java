@@ -0,0 +1,143 @@
+package main.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Разбор строки запроса за один проход без split и промежуточной карты.
+// Принимает сырую строку (URI.getRawQuery): getQuery() декодирует %26 и %3D до разбиения на пары.
+// Декодируется только найденное значение; при повторе ключа побеждает первое вхождение
+public class QueryString {
+
+    public static String get(String rawQuery, String name) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return null;
+        }
+        int length = rawQuery.length();
+        int start = 0;
+        while (start <= length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int eq = indexOf(rawQuery, '=', start, end);
+            int keyEnd = eq < 0 ? end : eq;
+            if (keyMatches(rawQuery, start, keyEnd, name)) {
+                return eq < 0 ? "" : decode(rawQuery, eq + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    public static List<String> getAll(String rawQuery, String name) {
+        List<String> values = new ArrayList<>(1);
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return values;
+        }
+        int length = rawQuery.length();
+        int start = 0;
+        while (start <= length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int eq = indexOf(rawQuery, '=', start, end);
+            int keyEnd = eq < 0 ? end : eq;
+            if (keyMatches(rawQuery, start, keyEnd, name)) {
+                values.add(eq < 0 ? "" : decode(rawQuery, eq + 1, end));
+            }
+            start = end + 1;
+        }
+        return values;
+    }
+
+    // Все параметры сразу - для мест, где действительно нужна карта
+    public static Map<String, String> parse(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        int length = rawQuery.length();
+        int start = 0;
+        while (start <= length) {
+            int end = rawQuery.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                int eq = indexOf(rawQuery, '=', start, end);
+                String key = decode(rawQuery, start, eq < 0 ? end : eq);
+                params.putIfAbsent(key, eq < 0 ? "" : decode(rawQuery, eq + 1, end));
+            }
+            start = end + 1;
+        }
+        return params;
+    }
+
+    private static boolean keyMatches(String query, int from, int to, String name) {
+        // Закодированный ключ (редкость) сравниваем после декодирования
+        for (int i = from; i < to; i++) {
+            char c = query.charAt(i);
+            if (c == '%' || c == '+') {
+                return decode(query, from, to).equals(name);
+            }
+        }
+        return to - from == name.length() && query.regionMatches(from, name, 0, name.length());
+    }
+
+    static String decode(String s, int from, int to) {
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c == '%' || c == '+') {
+                break;
+            }
+            i++;
+        }
+        if (i == to) {
+            return s.substring(from, to);
+        }
+
+        // Процент-последовательности собираем в байты, чтобы корректно получить UTF-8
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(to - from);
+        StringBuilder result = new StringBuilder(to - from);
+        result.append(s, from, i);
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c == '%' && isEscape(s, i, to)) {
+                bytes.reset();
+                while (i < to && s.charAt(i) == '%' && isEscape(s, i, to)) {
+                    bytes.write(hex(s, i + 1) << 4 | hex(s, i + 2));
+                    i += 3;
+                }
+                result.append(bytes.toString(StandardCharsets.UTF_8));
+            } else {
+                // Неполная последовательность вроде "%z" остается как есть
+                result.append(c == '+' ? ' ' : c);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isEscape(String s, int index, int to) {
+        return index + 2 < to && hex(s, index + 1) >= 0 && hex(s, index + 2) >= 0;
+    }
+
+    private static int hex(String s, int index) {
+        return Character.digit(s.charAt(index), 16);
+    }
+
+    private static int indexOf(String s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,120 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token bucket в форме GCRA: состояние корзины - одно число (теоретическое время следующего запроса),
+// обновляется одним CAS без блокировок. Корзина, чье время уже прошло, полна и ничем не отличается
+// от отсутствующей, поэтому такие корзины можно выбрасывать без изменения поведения
+public class RateLimiter {
+
+    public enum RouteClass { AUTH, SEARCH, WRITE, READ }
+
+    private static final boolean ENABLED = ServerConfig.isRateLimitEnabled();
+    private static final boolean BY_IP = ServerConfig.isRateLimitByIpEnabled();
+    private static final boolean BY_USER = ServerConfig.isRateLimitByUserEnabled();
+    private static final int MAX_BUCKETS = ServerConfig.getRateLimitMaxBuckets();
+
+    private static final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private static final long[] intervalNanos = new long[RouteClass.values().length];
+    private static final long[] toleranceNanos = new long[RouteClass.values().length];
+    private static final LongAdder[] allowed = new LongAdder[RouteClass.values().length];
+    private static final LongAdder[] limited = new LongAdder[RouteClass.values().length];
+    private static final LongAdder evicted = new LongAdder();
+
+    private static final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-limit-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        for (RouteClass routeClass : RouteClass.values()) {
+            int requests = Math.max(1, ServerConfig.getRateLimitRequests(routeClass.name().toLowerCase()));
+            long periodNanos = TimeUnit.SECONDS.toNanos(ServerConfig.getRateLimitPeriod(routeClass.name().toLowerCase()));
+            // Всплеск до полного объема корзины, дальше - равномерно по одному запросу на интервал
+            intervalNanos[routeClass.ordinal()] = periodNanos / requests;
+            toleranceNanos[routeClass.ordinal()] = periodNanos / requests * (requests - 1);
+            allowed[routeClass.ordinal()] = new LongAdder();
+            limited[routeClass.ordinal()] = new LongAdder();
+        }
+        sweeper.scheduleAtFixedRate(RateLimiter::evictIdle, 10, 10, TimeUnit.SECONDS);
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    // Проверка по IP - до очереди отсека и разбора сессии, чтобы всплеск с одного адреса
+    // получал 429 раньше, чем займет потоки и слоты предела конкурентности.
+    // 0 - запрос разрешен, иначе через сколько миллисекунд стоит повторить
+    public static long acquireByIp(String clientIp, RouteClass routeClass) {
+        long wait = BY_IP && clientIp != null ? take("ip:" + clientIp + ":" + routeClass.ordinal(), routeClass) : 0;
+        if (wait > 0) {
+            limited[routeClass.ordinal()].increment();
+        }
+        return wait;
+    }
+
+    // Проверка по пользователю - после разбора сессии; прошедший ее запрос считается разрешенным
+    public static long acquireByUser(Integer userId, RouteClass routeClass) {
+        long wait = BY_USER && userId != null ? take("user:" + userId + ":" + routeClass.ordinal(), routeClass) : 0;
+        (wait == 0 ? allowed : limited)[routeClass.ordinal()].increment();
+        return wait;
+    }
+
+    private static long take(String key, RouteClass routeClass) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_BUCKETS) {
+                evictIdle();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        long interval = intervalNanos[routeClass.ordinal()];
+        long tolerance = toleranceNanos[routeClass.ordinal()];
+        long now = System.nanoTime();
+        while (true) {
+            long tat = bucket.get();
+            long next = tat == Long.MIN_VALUE || tat < now ? now : tat;
+            if (next - now > tolerance) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - now - tolerance));
+            }
+            if (bucket.compareAndSet(tat, next + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    private static void evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> {
+            long tat = bucket.get();
+            return tat == Long.MIN_VALUE || tat - now <= 0;
+        });
+        evicted.add(before - buckets.size());
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ENABLED);
+        stats.put("buckets", buckets.size());
+        stats.put("evicted", evicted.sum());
+        for (RouteClass routeClass : RouteClass.values()) {
+            Map<String, Object> byClass = new LinkedHashMap<>();
+            byClass.put("allowed", allowed[routeClass.ordinal()].sum());
+            byClass.put("limited", limited[routeClass.ordinal()].sum());
+            stats.put(routeClass.name().toLowerCase(), byClass);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,234 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Чтение с реплик: выбирается здоровая реплика с допустимым отставанием и наименьшей загрузкой.
+// Отставание меряется по строке replication_heartbeat, которую основная БД обновляет каждую проверку.
+// Пользователь, только что что-то изменивший, некоторое время читает с основной БД (read-your-writes)
+public class ReplicaRouter {
+    private static final long MAX_LAG_MILLIS = ServerConfig.getReplicaMaxLagMillis();
+    private static final long STICKY_MILLIS = ServerConfig.getReplicaStickyMillis();
+
+    private static final List<Replica> replicas = createReplicas();
+    private static final Map<Integer, Long> recentWriters = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    private static final LongAdder primaryReads = new LongAdder();
+    private static final LongAdder replicaReads = new LongAdder();
+    private static final LongAdder pinnedReads = new LongAdder();
+
+    private static ScheduledExecutorService checker;
+
+    private static final class Replica {
+        final String url;
+        final ConnectionPool pool;
+        volatile boolean healthy;
+        volatile long lagMillis = -1;
+        volatile String lastError;
+        final LongAdder reads = new LongAdder();
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+
+        boolean usable() {
+            return healthy && (MAX_LAG_MILLIS <= 0 || lagMillis >= 0 && lagMillis <= MAX_LAG_MILLIS);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !replicas.isEmpty();
+    }
+
+    // Запускает проверки реплик и пульс основной БД; без реплик ничего не делает
+    public static synchronized void start() {
+        if (replicas.isEmpty() || checker != null) {
+            return;
+        }
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = ServerConfig.getReplicaCheckIntervalMillis();
+        checker.scheduleWithFixedDelay(ReplicaRouter::check, 0, interval, TimeUnit.MILLISECONDS);
+        System.out.println("📚 Чтение с реплик: " + replicas.size() + " шт., допустимое отставание "
+                + (MAX_LAG_MILLIS > 0 ? MAX_LAG_MILLIS + " мс" : "не проверяется"));
+    }
+
+    public static synchronized void shutdown() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    // Пул реплики для чтения или null, если читать нужно с основной БД
+    static ConnectionPool choose() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+        if (Boolean.TRUE.equals(pinned.get())) {
+            pinnedReads.increment();
+            return null;
+        }
+
+        Replica best = null;
+        int bestInUse = Integer.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (!replica.usable()) {
+                continue;
+            }
+            int inUse = replica.pool.inUse();
+            if (inUse < bestInUse || inUse == bestInUse && replica.lagMillis < best.lagMillis) {
+                best = replica;
+                bestInUse = inUse;
+            }
+        }
+        if (best == null) {
+            primaryReads.increment();
+            return null;
+        }
+        best.reads.increment();
+        replicaReads.increment();
+        return best.pool;
+    }
+
+    // Все чтения текущего запроса идут в основную БД (запросы на запись и чтение после своей записи)
+    public static void pinPrimary() {
+        pinned.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        pinned.remove();
+    }
+
+    public static void recordWrite(int userId) {
+        if (!replicas.isEmpty()) {
+            recentWriters.put(userId, System.currentTimeMillis() + STICKY_MILLIS);
+        }
+    }
+
+    public static boolean hasRecentWrite(int userId) {
+        Long until = recentWriters.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            recentWriters.remove(userId, until);
+            return false;
+        }
+        return true;
+    }
+
+    private static void check() {
+        long beat = System.currentTimeMillis();
+        boolean beatWritten = MAX_LAG_MILLIS <= 0 || writeHeartbeat(beat);
+
+        for (Replica replica : replicas) {
+            try (Connection conn = replica.pool.getConnection();
+                 Statement stmt = conn.createStatement()) {
+                if (MAX_LAG_MILLIS <= 0) {
+                    stmt.execute("SELECT 1");
+                    replica.lagMillis = 0;
+                } else {
+                    try (ResultSet rs = stmt.executeQuery("SELECT beat_at FROM replication_heartbeat WHERE id = 1")) {
+                        // Пульс еще не дошел до реплики - отставание неизвестно, реплика не используется
+                        replica.lagMillis = rs.next() && beatWritten
+                                ? Math.max(0, System.currentTimeMillis() - rs.getLong(1))
+                                : -1;
+                    }
+                }
+                if (!replica.healthy) {
+                    System.out.println("✅ Реплика доступна: " + replica.url);
+                }
+                replica.healthy = true;
+                replica.lastError = null;
+            } catch (SQLException e) {
+                if (replica.healthy) {
+                    System.err.println("⚠️ Реплика недоступна: " + replica.url + " - " + e.getMessage());
+                }
+                replica.healthy = false;
+                replica.lastError = e.getMessage();
+            }
+            replica.pool.evictIdle();
+        }
+
+        long now = System.currentTimeMillis();
+        recentWriters.values().removeIf(until -> until < now);
+    }
+
+    private static boolean writeHeartbeat(long beat) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement update = conn.prepareStatement("UPDATE replication_heartbeat SET beat_at = ? WHERE id = 1")) {
+            update.setLong(1, beat);
+            if (update.executeUpdate() == 0) {
+                try (PreparedStatement insert = conn.prepareStatement("INSERT INTO replication_heartbeat (id, beat_at) VALUES (1, ?)")) {
+                    insert.setLong(1, beat);
+                    insert.executeUpdate();
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("⚠️ Не удалось записать пульс репликации: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", !replicas.isEmpty());
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        stats.put("pinnedReads", pinnedReads.sum());
+        stats.put("stickyUsers", recentWriters.size());
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("url", replica.url);
+            item.put("healthy", replica.healthy);
+            item.put("lagMs", replica.lagMillis);
+            item.put("reads", replica.reads.sum());
+            item.put("pool", replica.pool.getStats());
+            if (replica.lastError != null) {
+                item.put("error", replica.lastError);
+            }
+            list.add(item);
+        }
+        stats.put("replicas", list);
+        return stats;
+    }
+
+    private static List<Replica> createReplicas() {
+        List<Replica> list = new ArrayList<>();
+        for (String url : ServerConfig.getReplicaUrls()) {
+            list.add(new Replica(url, new ConnectionPool(
+                    url,
+                    ServerConfig.getReplicaUser(),
+                    ServerConfig.getReplicaPassword(),
+                    ServerConfig.getDatabasePoolSize(),
+                    ServerConfig.getDatabaseMaxPoolSize(),
+                    ServerConfig.getDatabaseConnectionTimeout(),
+                    ServerConfig.getDatabaseIdleTimeout(),
+                    ServerConfig.getDatabaseStatementCacheSize())));
+        }
+        return list;
+    }
+}
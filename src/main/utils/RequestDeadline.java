@@ -0,0 +1,181 @@
+package main.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Срок выполнения запроса. Живет в потоке обработчика; каждый запрос к БД получает
+// setQueryTimeout по остатку срока, а по истечении срока выполняющийся запрос отменяется
+public class RequestDeadline {
+    private static final ThreadLocal<RequestDeadline> current = new ThreadLocal<>();
+
+    private static final ScheduledThreadPoolExecutor watchdog = createWatchdog();
+    private static final Map<String, LongAdder> timeouts = new ConcurrentHashMap<>();
+    private static final LongAdder cancelledStatements = new LongAdder();
+
+    private final String route;
+    private final long expiresAt;
+    private final ScheduledFuture<?> expiry;
+    private volatile Statement running;
+    private volatile boolean cancelled;
+    private volatile boolean timedOut;
+
+    private RequestDeadline(String route, long timeoutMillis) {
+        this.route = route;
+        this.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.expiry = watchdog.schedule(this::cancel, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static RequestDeadline start(String route, long timeoutMillis) {
+        RequestDeadline deadline = new RequestDeadline(route, timeoutMillis);
+        current.set(deadline);
+        return deadline;
+    }
+
+    public static RequestDeadline current() {
+        return current.get();
+    }
+
+    // Запрос завершил работу с БД на текущем потоке: таймер больше не нужен
+    public void finish() {
+        expiry.cancel(false);
+        if (current.get() == this) {
+            current.remove();
+        }
+        if (timedOut) {
+            timeouts.computeIfAbsent(route, k -> new LongAdder()).increment();
+        }
+    }
+
+    // Срок истек на текущем потоке - ошибку БД следует отдавать как 504
+    public static boolean isTimedOut() {
+        RequestDeadline deadline = current.get();
+        return deadline != null && deadline.timedOut;
+    }
+
+    public boolean isExpired() {
+        return cancelled || System.nanoTime() - expiresAt >= 0;
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    // Кооперативная отмена: следующий запрос к БД не начнется, текущий прерывается драйвером
+    public void cancel() {
+        cancelled = true;
+        Statement statement = running;
+        if (statement != null) {
+            try {
+                statement.cancel();
+                cancelledStatements.increment();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    public Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return wrapStatement((Statement) result, PreparedStatement.class);
+                        case "prepareCall":
+                            return wrapStatement((Statement) result, CallableStatement.class);
+                        case "createStatement":
+                            return wrapStatement((Statement) result, Statement.class);
+                        default:
+                            return result;
+                    }
+                });
+    }
+
+    private Statement wrapStatement(Statement statement, Class<? extends Statement> type) {
+        return (Statement) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{type},
+                new StatementHandler(statement));
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+
+        StatementHandler(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return RequestDeadline.invoke(statement, method, args);
+            }
+
+            if (isExpired()) {
+                timedOut = true;
+                throw new SQLTimeoutException("Request deadline exceeded before query start");
+            }
+            // Таймаут драйвера задается в целых секундах, округляем вверх
+            statement.setQueryTimeout((int) Math.max(1, (remainingMillis() + 999) / 1000));
+            running = statement;
+            try {
+                if (cancelled) {
+                    throw new SQLTimeoutException("Request deadline exceeded");
+                }
+                return RequestDeadline.invoke(statement, method, args);
+            } catch (SQLException e) {
+                // Отмена по сроку у разных драйверов приходит разными исключениями
+                if (e instanceof SQLTimeoutException || isExpired()) {
+                    timedOut = true;
+                }
+                throw e;
+            } finally {
+                running = null;
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Long> byRoute = new LinkedHashMap<>();
+        timeouts.forEach((route, count) -> byRoute.put(route, count.sum()));
+        stats.put("timeouts", byRoute);
+        stats.put("cancelledStatements", cancelledStatements.sum());
+        return stats;
+    }
+
+    private static ScheduledThreadPoolExecutor createWatchdog() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "request-deadline-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Почти все таймеры отменяются до срабатывания - не держим их в очереди
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -0,0 +1,242 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+// Готовые ответы публичных GET-запросов каталога: JSON уже сериализован, сжатый вариант хранится рядом.
+// Актуальность определяется версиями, а не временем: запись фильма, отзыва или жанра
+// увеличивает версию своей области, и старые записи больше не совпадают по ETag.
+// Области: списки фильмов (любое изменение), страница фильма (изменения этого фильма
+// и его отзывов) и эпоха (жанры, пользователи - меняет все сразу).
+// Версии локальны для узла, запись через другой узел их не меняет. Поэтому с cache.nodeStaleness
+// в версию входит номер интервала этой длины: по его смене ответы и ETag строятся заново,
+// и чужое изменение видно здесь не позже чем через интервал
+public class ResponseCache {
+    private static final boolean ENABLED = ServerConfig.isCacheEnabled();
+    private static final long TTL_MILLIS = ServerConfig.getCacheTtlSeconds() * 1000;
+    private static final int MAX_SIZE = ServerConfig.getCacheMaxSize();
+    private static final long STALENESS_MILLIS = ServerConfig.getCacheNodeStalenessSeconds() * 1000;
+    private static final int COMPRESS_MIN_BYTES = 1024;
+    private static final int MOVIE_STRIPES = 1024;
+
+    // Версии начинаются со случайной метки процесса: ETag прошлого запуска не совпадет с новым
+    private static final String BOOT = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private static final AtomicLong epoch = new AtomicLong();
+    private static final AtomicLong lists = new AtomicLong();
+    private static final AtomicLongArray movies = new AtomicLongArray(MOVIE_STRIPES);
+    private static volatile long lastChangeAt;
+
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > MAX_SIZE) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder notModified = new LongAdder();
+    private static final LongAdder bypassed = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    // Версия данных, на которых строится ответ. Берется до чтения из БД: изменение во время
+    // чтения увеличит версию, и ответ, собранный по старым данным, под новой версией не окажется
+    public static final class Tag {
+        private final String version;
+        private final boolean cacheable;
+
+        private Tag(String version, boolean cacheable) {
+            this.version = version;
+            this.cacheable = cacheable;
+        }
+
+        public boolean isCacheable() {
+            return cacheable;
+        }
+
+        public String etag(boolean gzip) {
+            return gzip ? "\"" + version + "-gz\"" : "\"" + version + "\"";
+        }
+
+        // If-None-Match: список тегов, слабые (W/) и сжатые варианты считаются тем же ответом
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || !cacheable) {
+                return false;
+            }
+            if (ifNoneMatch.trim().equals("*")) {
+                return true;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("\"" + version + "\"") || tag.equals("\"" + version + "-gz\"")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static final class Entry {
+        private final String version;
+        private final byte[] body;
+        private final long expiresAt;
+        private volatile byte[] gzipped;
+
+        Entry(String version, byte[] body, long expiresAt) {
+            this.version = version;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] getBody() { return body; }
+
+        // Сжимается при первом запросе с gzip: при частых изменениях большинство записей
+        // вытесняется раньше, чем понадобится сжатый вариант. null - ответ слишком мал
+        public byte[] getGzipped() {
+            byte[] result = gzipped;
+            if (result == null && body.length >= COMPRESS_MIN_BYTES) {
+                result = gzip(body);
+                gzipped = result;
+            }
+            return result;
+        }
+    }
+
+    public static Tag listTag() {
+        return tag(epoch.get() + "." + lists.get());
+    }
+
+    public static Tag movieTag(int movieId) {
+        return tag(epoch.get() + ".m" + movies.get(stripe(movieId)));
+    }
+
+    private static Tag tag(String version) {
+        if (STALENESS_MILLIS > 0) {
+            version += "." + Long.toString(System.currentTimeMillis() / STALENESS_MILLIS, 36);
+        }
+        return new Tag(BOOT + "." + version, ENABLED && !withinReplicaLag());
+    }
+
+    // max-age для браузеров и CDN: не дольше интервала nodeStaleness, иначе клиент
+    // продолжит показывать ответ, который узел уже считает устаревшим
+    public static long maxAgeSeconds() {
+        long maxAge = ServerConfig.getCacheHttpMaxAge();
+        return STALENESS_MILLIS > 0 ? Math.min(maxAge, STALENESS_MILLIS / 1000) : maxAge;
+    }
+
+    // С репликами ответ сразу после изменения мог быть прочитан с отстающей реплики.
+    // Такой ответ под новой версией закрепил бы старые данные, поэтому в это окно кэш не наполняется
+    private static boolean withinReplicaLag() {
+        if (!ReplicaRouter.isEnabled()) {
+            return false;
+        }
+        long maxLag = ServerConfig.getReplicaMaxLagMillis();
+        long window = maxLag > 0 ? maxLag : ServerConfig.getReplicaStickyMillis();
+        return System.currentTimeMillis() - lastChangeAt < window;
+    }
+
+    public static Entry get(String key, Tag tag) {
+        if (!tag.cacheable) {
+            bypassed.increment();
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version.equals(tag.version) && entry.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public static Entry put(String key, Tag tag, String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        Entry entry = new Entry(tag.version, body, System.currentTimeMillis() + TTL_MILLIS);
+        if (tag.cacheable) {
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    public static void notModified() {
+        notModified.increment();
+    }
+
+    // Создание фильма и изменение его данных, жанров или отзывов
+    public static void movieChanged(int movieId) {
+        Runnable bump = () -> {
+            lastChangeAt = System.currentTimeMillis();
+            lists.incrementAndGet();
+            movies.incrementAndGet(stripe(movieId));
+        };
+        // Сразу и еще раз после фиксации транзакции: между ними читатель мог увидеть старые данные
+        bump.run();
+        UnitOfWork.afterCompletion(bump);
+    }
+
+    // Изменения, затрагивающие все страницы: жанры, имена пользователей, отзывы без известного фильма
+    public static void allChanged() {
+        Runnable bump = () -> {
+            lastChangeAt = System.currentTimeMillis();
+            epoch.incrementAndGet();
+        };
+        bump.run();
+        UnitOfWork.afterCompletion(bump);
+    }
+
+    private static int stripe(int movieId) {
+        return Math.floorMod(movieId, MOVIE_STRIPES);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static Map<String, Object> getStats() {
+        long n = hits.sum() + misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", ENABLED);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", MAX_SIZE);
+        stats.put("nodeStalenessMs", STALENESS_MILLIS);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", n == 0 ? 0.0 : Math.round(hits.sum() * 1000.0 / n) / 1000.0);
+        stats.put("notModified", notModified.sum());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("epoch", epoch.get());
+        stats.put("listVersion", lists.get());
+        return stats;
+    }
+}
@@ -0,0 +1,381 @@
+package main.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Версионные миграции схемы. Каждая применяется один раз и записывается в schema_migrations
+// вместе с контрольной суммой своих шагов; при актуальной схеме запуск стоит одного SELECT.
+// Уже примененную миграцию менять нельзя - контрольная сумма не сойдется и запуск остановится.
+// Изменения схемы добавляются новой миграцией в конец списка.
+// Узлы, запущенные одновременно, применяют миграции по очереди под блокировкой строки schema_lock
+public class SchemaMigrator {
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Исходная схема",
+                    sql("CREATE TABLE IF NOT EXISTS users (" +
+                            "id INT PRIMARY KEY AUTO_INCREMENT," +
+                            "username VARCHAR(50) UNIQUE NOT NULL," +
+                            "email VARCHAR(100) UNIQUE NOT NULL," +
+                            "password_hash VARCHAR(255) NOT NULL," +
+                            "role ENUM('USER', 'ADMIN') DEFAULT 'USER'," +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                            "is_active BOOLEAN DEFAULT TRUE" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS movies (" +
+                            "id INT PRIMARY KEY AUTO_INCREMENT," +
+                            "title VARCHAR(255) NOT NULL," +
+                            "director VARCHAR(255)," +
+                            "year INT," +
+                            "description TEXT," +
+                            "duration INT," +
+                            "poster_url VARCHAR(500)," +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS genres (" +
+                            "id INT PRIMARY KEY AUTO_INCREMENT," +
+                            "name VARCHAR(50) UNIQUE NOT NULL" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS movie_genres (" +
+                            "movie_id INT," +
+                            "genre_id INT," +
+                            "PRIMARY KEY (movie_id, genre_id)," +
+                            "FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE," +
+                            "FOREIGN KEY (genre_id) REFERENCES genres(id) ON DELETE CASCADE" +
+                            ")"),
+                    sql("CREATE TABLE IF NOT EXISTS reviews (" +
+                            "id INT PRIMARY KEY AUTO_INCREMENT," +
+                            "movie_id INT," +
+                            "user_id INT," +
+                            "rating INT CHECK (rating >= 1 AND rating <= 10)," +
+                            "comment TEXT," +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+                            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                            "is_approved BOOLEAN DEFAULT TRUE," +
+                            "FOREIGN KEY (movie_id) REFERENCES movies(id) ON DELETE CASCADE," +
+                            "FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE," +
+                            "UNIQUE KEY unique_review (movie_id, user_id)" +
+                            ")"),
+                    // Пульс для измерения отставания реплик
+                    sql("CREATE TABLE IF NOT EXISTS replication_heartbeat (" +
+                            "id INT PRIMARY KEY," +
+                            "beat_at BIGINT NOT NULL" +
+                            ")")),
+
+            // Индексы прежней инициализации; в базе, где они уже есть, пропускаются
+            new Migration(2, "Исходные индексы",
+                    index("idx_movies_title", "movies", "title"),
+                    index("idx_movies_year", "movies", "year"),
+                    index("idx_reviews_movie_id", "reviews", "movie_id"),
+                    index("idx_reviews_user_id", "reviews", "user_id"),
+                    index("idx_reviews_created_at", "reviews", "created_at"),
+                    index("idx_users_email", "users", "email")),
+
+            new Migration(3, "Жанры, администратор и тестовые данные",
+                    seedIfEmpty("SELECT COUNT(*) FROM genres",
+                            "INSERT IGNORE INTO genres (name) VALUES " +
+                                    "('Драма'), ('Комедия'), ('Боевик'), ('Фантастика'), ('Ужасы'), " +
+                                    "('Мелодрама'), ('Триллер'), ('Детектив'), ('Приключения'), ('Аниме'), " +
+                                    "('Фэнтези'), ('Исторический'), ('Документальный'), ('Мюзикл'), ('Вестерн'), " +
+                                    "('Криминал'), ('Семейный'), ('Биография'), ('Спорт'), ('Военный')"),
+                    // Пароли: admin123 и password123
+                    seedIfEmpty("SELECT COUNT(*) FROM users WHERE email = 'admin@movie.com'",
+                            "INSERT INTO users (username, email, password_hash, role) VALUES " +
+                                    "('admin', 'admin@movie.com', " +
+                                    "'$2a$12$Yl6Z6Q8L8Q8L8Q8L8Q8L8Oe6Z6Q8L8Q8L8Q8L8Q8L8Q8L8Q8L8Q8L', 'ADMIN')",
+                            "INSERT INTO users (username, email, password_hash) VALUES " +
+                                    "('alex', 'alex@example.com', " +
+                                    "'$2a$12$Yl6Z6Q8L8Q8L8Q8L8Q8L8Oe6Z6Q8L8Q8L8Q8L8Q8L8Q8L8Q8L8Q8L')"),
+                    seedIfEmpty("SELECT COUNT(*) FROM movies",
+                            "INSERT INTO movies (title, director, year, description, duration) VALUES " +
+                                    "('Интерстеллар', 'Кристофер Нолан', 2014, 'Фантастический эпос о путешествии в космос', 169), " +
+                                    "('Начало', 'Кристофер Нолан', 2010, 'Фильм о краже идей через сны', 148), " +
+                                    "('Криминальное чтиво', 'Квентин Тарантино', 1994, 'Культовый фильм о гангстерах', 154), " +
+                                    "('Побег из Шоушенка', 'Фрэнк Дарабонт', 1994, 'Драма о заключенном в тюрьме', 142)")),
+
+            // Составные индексы под горячие запросы: отзывы фильма, модерация, новые фильмы и пользователи
+            new Migration(4, "Составные индексы списков",
+                    index("idx_reviews_movie_approved_created", "reviews", "movie_id, is_approved, created_at"),
+                    index("idx_reviews_approved_created", "reviews", "is_approved, created_at"),
+                    index("idx_movies_created_at", "movies", "created_at"),
+                    index("idx_users_created_at", "users", "created_at"))
+    );
+
+    private static volatile int currentVersion;
+    private static volatile int appliedOnStartup;
+
+    private interface Step {
+        // Текст шага входит в контрольную сумму миграции
+        String text();
+
+        void apply(Connection conn, Statement stmt) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final List<Step> steps;
+        final String checksum;
+
+        Migration(int version, String description, Step... steps) {
+            this.version = version;
+            this.description = description;
+            this.steps = List.of(steps);
+            StringBuilder text = new StringBuilder();
+            for (Step step : steps) {
+                text.append(step.text()).append('\n');
+            }
+            this.checksum = sha256(text.toString());
+        }
+    }
+
+    public static void migrate() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            Map<Integer, String> applied = appliedMigrations(stmt);
+            validate(applied);
+
+            int count = 0;
+            if (hasPending(applied)) {
+                // Второй узел ждет здесь, пока первый не закончит, и затем видит уже примененные миграции
+                MigrationLock lock = MigrationLock.acquire();
+                try {
+                    applied = appliedMigrations(stmt);
+                    validate(applied);
+                    count = applyPending(conn, stmt, applied);
+                } finally {
+                    lock.close();
+                }
+            }
+
+            appliedOnStartup = count;
+            currentVersion = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+            if (count == 0) {
+                System.out.println("✅ Схема БД актуальна, версия " + currentVersion);
+            }
+        }
+    }
+
+    private static boolean hasPending(Map<Integer, String> applied) {
+        for (Migration migration : MIGRATIONS) {
+            if (!applied.containsKey(migration.version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int applyPending(Connection conn, Statement stmt, Map<Integer, String> applied) throws SQLException {
+        int count = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (applied.containsKey(migration.version)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                for (Step step : migration.steps) {
+                    step.apply(conn, stmt);
+                }
+                record(conn, migration, (System.nanoTime() - start) / 1_000_000);
+            } catch (SQLException e) {
+                // Узел прежней версии, не знающий о блокировке, мог применить ту же миграцию
+                if (appliedMigrations(stmt).containsKey(migration.version)) {
+                    continue;
+                }
+                throw new SQLException("Migration V" + migration.version + " (" + migration.description
+                        + ") failed: " + e.getMessage(), e.getSQLState(), e);
+            }
+            count++;
+            System.out.printf("🗄️ Миграция V%d применена: %s (%d мс)%n",
+                    migration.version, migration.description, (System.nanoTime() - start) / 1_000_000);
+        }
+        return count;
+    }
+
+    // Блокировка строки на отдельном соединении: DDL в MySQL неявно фиксирует транзакцию
+    // своего соединения, поэтому держать блокировку на соединении миграций нельзя.
+    // Не дождавшийся блокировки узел получает ошибку, и этап запуска повторит попытку
+    private static final class MigrationLock implements AutoCloseable {
+        private final Connection conn;
+
+        private MigrationLock(Connection conn) {
+            this.conn = conn;
+        }
+
+        static MigrationLock acquire() throws SQLException {
+            Connection conn = DatabaseConnection.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_lock (id INT PRIMARY KEY)");
+                stmt.execute("INSERT IGNORE INTO schema_lock (id) VALUES (1)");
+                conn.setAutoCommit(false);
+                stmt.executeQuery("SELECT id FROM schema_lock WHERE id = 1 FOR UPDATE").close();
+                return new MigrationLock(conn);
+            } catch (SQLException e) {
+                release(conn);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            release(conn);
+        }
+
+        private static void release(Connection conn) throws SQLException {
+            try {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            } finally {
+                conn.close();
+            }
+        }
+    }
+
+    // Таблица журнала создается только при первом запуске; при актуальной схеме DDL не выполняется
+    private static Map<Integer, String> appliedMigrations(Statement stmt) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getString("checksum"));
+            }
+        } catch (SQLException e) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                    "version INT PRIMARY KEY," +
+                    "description VARCHAR(200) NOT NULL," +
+                    "checksum CHAR(64) NOT NULL," +
+                    "execution_ms BIGINT NOT NULL," +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                    ")");
+        }
+        return applied;
+    }
+
+    private static void validate(Map<Integer, String> applied) throws SQLException {
+        int latest = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+        for (Migration migration : MIGRATIONS) {
+            String checksum = applied.get(migration.version);
+            if (checksum != null && !checksum.equals(migration.checksum)) {
+                throw new SQLException("Migration V" + migration.version + " (" + migration.description
+                        + ") was changed after it had been applied: checksum mismatch");
+            }
+        }
+        for (int version : applied.keySet()) {
+            if (version > latest) {
+                // База уже обновлена более новой версией приложения (например, во время выкладки)
+                System.out.println("⚠️ В БД есть миграция V" + version + ", неизвестная этой версии приложения");
+            }
+        }
+    }
+
+    private static void record(Connection conn, Migration migration, long millis) throws SQLException {
+        try (var stmt = conn.prepareStatement(
+                "INSERT INTO schema_migrations (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setString(3, migration.checksum);
+            stmt.setLong(4, millis);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static Step sql(String sql) {
+        return new Step() {
+            @Override
+            public String text() {
+                return sql;
+            }
+
+            @Override
+            public void apply(Connection conn, Statement stmt) throws SQLException {
+                stmt.execute(sql);
+            }
+        };
+    }
+
+    // MySQL не поддерживает CREATE INDEX IF NOT EXISTS, поэтому наличие проверяется по метаданным
+    private static Step index(String name, String table, String columns) {
+        String sql = "CREATE INDEX " + name + " ON " + table + "(" + columns + ")";
+        return new Step() {
+            @Override
+            public String text() {
+                return sql;
+            }
+
+            @Override
+            public void apply(Connection conn, Statement stmt) throws SQLException {
+                if (!indexExists(conn, table, name)) {
+                    stmt.execute(sql);
+                }
+            }
+        };
+    }
+
+    // Данные добавляются, только если guard (COUNT) вернул 0 - в базе, заполненной до миграций, ничего не дублируется
+    private static Step seedIfEmpty(String guard, String... inserts) {
+        return new Step() {
+            @Override
+            public String text() {
+                return guard + "\n" + String.join("\n", inserts);
+            }
+
+            @Override
+            public void apply(Connection conn, Statement stmt) throws SQLException {
+                try (ResultSet rs = stmt.executeQuery(guard)) {
+                    if (rs.next() && rs.getLong(1) > 0) {
+                        return;
+                    }
+                }
+                for (String insert : inserts) {
+                    stmt.execute(insert);
+                }
+            }
+        };
+    }
+
+    private static boolean indexExists(Connection conn, String table, String name) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        // Регистр имен зависит от СУБД, поэтому сравниваем без учета регистра
+        for (String candidate : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, candidate, false, false)) {
+                while (rs.next()) {
+                    if (name.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", currentVersion);
+        stats.put("known", MIGRATIONS.size());
+        stats.put("appliedOnStartup", appliedOnStartup);
+        return stats;
+    }
+}
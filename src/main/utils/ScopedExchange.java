@@ -0,0 +1,60 @@
+package main.utils;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+// Обертка над HttpExchange с атрибутами на один запрос. В JDK 17 getAttribute/setAttribute
+// обычного обмена работают с общей картой HttpContext, и значения видны соседним запросам
+public class ScopedExchange extends HttpExchange {
+    private final HttpExchange exchange;
+    private final Map<String, Object> attributes = new HashMap<>(4);
+
+    public ScopedExchange(HttpExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override public Headers getRequestHeaders() { return exchange.getRequestHeaders(); }
+    @Override public Headers getResponseHeaders() { return exchange.getResponseHeaders(); }
+    @Override public URI getRequestURI() { return exchange.getRequestURI(); }
+    @Override public String getRequestMethod() { return exchange.getRequestMethod(); }
+    @Override public HttpContext getHttpContext() { return exchange.getHttpContext(); }
+    @Override public void close() { exchange.close(); }
+    @Override public InputStream getRequestBody() { return exchange.getRequestBody(); }
+    @Override public OutputStream getResponseBody() { return exchange.getResponseBody(); }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        exchange.sendResponseHeaders(rCode, responseLength);
+    }
+
+    @Override public InetSocketAddress getRemoteAddress() { return exchange.getRemoteAddress(); }
+    @Override public int getResponseCode() { return exchange.getResponseCode(); }
+    @Override public InetSocketAddress getLocalAddress() { return exchange.getLocalAddress(); }
+    @Override public String getProtocol() { return exchange.getProtocol(); }
+
+    @Override
+    public synchronized Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public synchronized void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override public void setStreams(InputStream i, OutputStream o) { exchange.setStreams(i, o); }
+    @Override public HttpPrincipal getPrincipal() { return exchange.getPrincipal(); }
+}
@@ -1,32 +1,97 @@
 package main.utils;
 
+import main.config.ServerConfig;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SessionManager {
     private static final Map<String, SessionData> sessions = new ConcurrentHashMap<>();
-    private static final long SESSION_TIMEOUT = 24 * 60 * 60 * 1000; // 24 часа
-    private static final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor();
+    private static final long SESSION_TIMEOUT = ServerConfig.getSessionTimeout();
+    private static final long TICK = ServerConfig.getSessionCleanupInterval();
+    // Поток очистки создается с первой сессией или восстановлением, а не при загрузке класса
+    private static volatile ScheduledExecutorService cleaner;
 
-    static {
-        // Очистка устаревших сессий каждый час
-        cleaner.scheduleAtFixedRate(SessionManager::cleanExpiredSessions,
-                1, 1, TimeUnit.HOURS);
+    // Корзины истечения: номер тика -> сессии, которые должны истечь к его концу.
+    // Обход затрагивает только наступившие корзины, а не всю карту сессий
+    private static final NavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder expired = new LongAdder();
+    private static final LongAdder invalidated = new LongAdder();
+    private static final LongAdder rescheduled = new LongAdder();
+    private static final LongAdder touches = new LongAdder();
+    private static volatile long lastSweepAt = System.currentTimeMillis();
+    private static volatile long createdAtLastSweep;
+    private static volatile long expiredAtLastSweep;
+    private static volatile double createdPerMinute;
+    private static volatile double expiredPerMinute;
+
+    private static final SessionStore store = SessionStore.create(ServerConfig.getSessionStore());
+    private static volatile CompletableFuture<Void> restoring = CompletableFuture.completedFuture(null);
+    private static final LongAdder restored = new LongAdder();
+    private static final LongAdder loaded = new LongAdder();
+
+    // Режим token: состояние сессии целиком в подписанном cookie, на сервере только список отзыва.
+    // Списки в памяти действуют на этом узле сразу; с общим хранилищем (kv) отзыв пишется и туда,
+    // а другие узлы сверяются с ним не реже раза в session.revocation.refreshMs на токен
+    private static final boolean TOKEN_MODE = "token".equalsIgnoreCase(ServerConfig.getSessionMode());
+    private static final Map<String, Long> revokedTokens = new ConcurrentHashMap<>(); // подпись -> срок токена
+    private static final Map<Integer, Long> revokedUsers = new ConcurrentHashMap<>(); // userId -> момент отзыва
+    private static final boolean SHARED_REVOCATION = TOKEN_MODE && store.sharesRevocations();
+    private static final long REVOCATION_REFRESH = ServerConfig.getSessionRevocationRefreshMillis();
+    private static final Map<String, RevocationCheck> revocationChecks = new ConcurrentHashMap<>(); // подпись -> проверка
+    private static final LongAdder revocationLookups = new LongAdder();
+
+    private static final class RevocationCheck {
+        final boolean revoked;
+        final long checkedAt;
+
+        RevocationCheck(boolean revoked, long checkedAt) {
+            this.revoked = revoked;
+            this.checkedAt = checkedAt;
+        }
     }
 
-    private static class SessionData {
-        int userId;
-        String role;
-        long expiryTime;
+    // Неизменяемые данные сессии, которые обработчик получает один раз на запрос
+    public static final class Principal {
+        private final int userId;
+        private final String role;
+        private final long tokenExpiresAt; // 0 - серверная сессия
 
-        SessionData(int userId, String role) {
+        Principal(int userId, String role, long tokenExpiresAt) {
             this.userId = userId;
             this.role = role;
-            this.expiryTime = System.currentTimeMillis() + SESSION_TIMEOUT;
+            this.tokenExpiresAt = tokenExpiresAt;
+        }
+
+        public int getUserId() { return userId; }
+        public String getRole() { return role; }
+    }
+
+    private static class SessionData {
+        final Principal principal;
+        volatile long expiryTime;
+        long bucket;
+
+        SessionData(int userId, String role, long expiryTime) {
+            this.principal = new Principal(userId, role, 0);
+            this.expiryTime = expiryTime;
+        }
+
+        SessionStore.StoredSession toStored() {
+            return new SessionStore.StoredSession(principal.getUserId(), principal.getRole(), expiryTime);
         }
 
         boolean isExpired() {
@@ -35,41 +100,339 @@ public class SessionManager {
     }
 
     public static String createSession(int userId, String role) {
+        startCleaner();
+        if (TOKEN_MODE) {
+            created.increment();
+            return SessionTokens.issue(userId, role, SESSION_TIMEOUT);
+        }
         String sessionId = UUID.randomUUID().toString();
-        sessions.put(sessionId, new SessionData(userId, role));
+        SessionData data = new SessionData(userId, role, System.currentTimeMillis() + SESSION_TIMEOUT);
+        sessions.put(sessionId, data);
+        schedule(sessionId, data);
+        store.save(sessionId, data.toStored());
+        created.increment();
         return sessionId;
     }
 
-    public static Integer getUserId(String sessionId) {
+    // Запускает восстановление сессий из хранилища в фоне; запуск сервера его не ждет
+    public static void restore() {
+        startCleaner();
+        if (TOKEN_MODE) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        restoring = store.restore(SessionManager::restored).thenRun(() ->
+                System.out.println("🔑 Восстановлено сессий: " + restored.sum() + " за "
+                        + (System.currentTimeMillis() - start) + " мс (" + store.name() + ")"));
+    }
+
+    private static void restored(String sessionId, SessionStore.StoredSession stored) {
+        SessionData current = sessions.get(sessionId);
+        if (stored == null) {
+            if (current != null && sessions.remove(sessionId, current)) {
+                unschedule(sessionId, current);
+            }
+            return;
+        }
+        if (stored.getExpiryTime() <= System.currentTimeMillis()
+                || (current != null && current.expiryTime >= stored.getExpiryTime())) {
+            return;
+        }
+        SessionData data = new SessionData(stored.getUserId(), stored.getRole(), stored.getExpiryTime());
+        if (current != null) {
+            unschedule(sessionId, current);
+        }
+        sessions.put(sessionId, data);
+        schedule(sessionId, data);
+        if (current == null) {
+            restored.increment();
+        }
+    }
+
+    // Запросы во время восстановления ждут его окончания, но не дольше session.store.restoreWaitMs
+    private static void awaitRestore() {
+        CompletableFuture<Void> pending = restoring;
+        if (pending.isDone()) {
+            return;
+        }
+        try {
+            pending.get(ServerConfig.getSessionRestoreWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Отвечаем по тому, что уже восстановлено
+        }
+    }
+
+    private static SessionData lookup(String sessionId) {
+        // Пока журнал не дочитан, найденная в памяти сессия может быть уже удалена более поздней записью
+        awaitRestore();
         SessionData data = sessions.get(sessionId);
-        if (data == null || data.isExpired()) {
-            sessions.remove(sessionId);
+        if (data != null) {
+            return data;
+        }
+
+        // Хранилища без полного восстановления отдают сессию по запросу
+        SessionStore.StoredSession stored = store.load(sessionId);
+        if (stored == null || stored.getExpiryTime() <= System.currentTimeMillis()) {
             return null;
         }
-        // Обновляем время истечения при активности
-        data.expiryTime = System.currentTimeMillis() + SESSION_TIMEOUT;
-        return data.userId;
+        SessionData fresh = new SessionData(stored.getUserId(), stored.getRole(), stored.getExpiryTime());
+        SessionData existing = sessions.putIfAbsent(sessionId, fresh);
+        if (existing != null) {
+            return existing;
+        }
+        schedule(sessionId, fresh);
+        loaded.increment();
+        return fresh;
     }
 
-    public static String getUserRole(String sessionId) {
-        SessionData data = sessions.get(sessionId);
+    public static Principal resolve(String sessionId) {
+        if (TOKEN_MODE) {
+            return resolveToken(sessionId);
+        }
+        SessionData data = lookup(sessionId);
         if (data == null || data.isExpired()) {
-            sessions.remove(sessionId);
+            expire(sessionId);
             return null;
         }
-        data.expiryTime = System.currentTimeMillis() + SESSION_TIMEOUT;
-        return data.role;
+        // Продлеваем не чаще раза за тик: точнее корзины истечения все равно не различают,
+        // а запись в общее поле на каждом запросе - лишняя конкуренция между потоками
+        long expiryTime = System.currentTimeMillis() + SESSION_TIMEOUT;
+        if (expiryTime - data.expiryTime >= TICK) {
+            data.expiryTime = expiryTime;
+            store.save(sessionId, data.toStored());
+            touches.increment();
+        }
+        return data.principal;
+    }
+
+    private static Principal resolveToken(String token) {
+        SessionTokens.Token parsed = SessionTokens.verify(token);
+        if (parsed == null) {
+            return null;
+        }
+        // Списки отзыва почти всегда пусты, поэтому обычный запрос обходится без поиска в карте
+        if (!revokedTokens.isEmpty() && revokedTokens.containsKey(parsed.getSignature())) {
+            return null;
+        }
+        if (!revokedUsers.isEmpty()) {
+            Long revokedAt = revokedUsers.get(parsed.getUserId());
+            if (revokedAt != null && parsed.getIssuedAt() <= revokedAt) {
+                return null;
+            }
+        }
+        if (SHARED_REVOCATION && revokedElsewhere(parsed)) {
+            return null;
+        }
+        return new Principal(parsed.getUserId(), parsed.getRole(), parsed.getExpiresAt());
+    }
+
+    // Отзыв, сделанный на другом узле. Результат проверки держится REVOCATION_REFRESH:
+    // это и есть задержка распространения отзыва, а хранилище видит не больше запроса в секунду на токен
+    private static boolean revokedElsewhere(SessionTokens.Token token) {
+        long now = System.currentTimeMillis();
+        RevocationCheck check = revocationChecks.get(token.getSignature());
+        if (check != null && now - check.checkedAt < REVOCATION_REFRESH) {
+            return check.revoked;
+        }
+        revocationLookups.increment();
+        Long tokenRevokedAt = store.revokedAt("token:" + token.getSignature());
+        Long userRevokedAt = store.revokedAt("user:" + token.getUserId());
+        boolean revoked = tokenRevokedAt != null || userRevokedAt != null && token.getIssuedAt() <= userRevokedAt;
+        revocationChecks.put(token.getSignature(), new RevocationCheck(revoked, now));
+        return revoked;
+    }
+
+    // Новый токен взамен того, у которого осталось меньше половины срока; null - менять не нужно
+    public static String renew(Principal principal) {
+        if (principal.tokenExpiresAt == 0
+                || principal.tokenExpiresAt - System.currentTimeMillis() > SESSION_TIMEOUT / 2) {
+            return null;
+        }
+        touches.increment();
+        return SessionTokens.issue(principal.getUserId(), principal.getRole(), SESSION_TIMEOUT);
+    }
+
+    // Смена роли или блокировка: все текущие сессии пользователя перестают действовать
+    public static void revokeUser(int userId) {
+        startCleaner();
+        if (TOKEN_MODE) {
+            long now = System.currentTimeMillis();
+            revokedUsers.put(userId, now);
+            // Токены живут не дольше SESSION_TIMEOUT, после этого отзыв не нужен
+            store.revoke("user:" + userId, now, SESSION_TIMEOUT);
+            return;
+        }
+        awaitRestore();
+        sessions.forEach((sessionId, data) -> {
+            if (data.principal.getUserId() == userId && sessions.remove(sessionId, data)) {
+                unschedule(sessionId, data);
+                store.remove(sessionId);
+                invalidated.increment();
+            }
+        });
+    }
+
+    public static int getSessionMaxAgeSeconds() {
+        return (int) (SESSION_TIMEOUT / 1000);
+    }
+
+    public static Integer getUserId(String sessionId) {
+        Principal principal = resolve(sessionId);
+        return principal != null ? principal.getUserId() : null;
+    }
+
+    public static String getUserRole(String sessionId) {
+        Principal principal = resolve(sessionId);
+        return principal != null ? principal.getRole() : null;
     }
 
     public static void invalidateSession(String sessionId) {
-        sessions.remove(sessionId);
+        startCleaner();
+        if (TOKEN_MODE) {
+            SessionTokens.Token parsed = SessionTokens.verify(sessionId);
+            if (parsed != null) {
+                revokedTokens.put(parsed.getSignature(), parsed.getExpiresAt());
+                store.revoke("token:" + parsed.getSignature(), System.currentTimeMillis(),
+                        parsed.getExpiresAt() - System.currentTimeMillis());
+                invalidated.increment();
+            }
+            return;
+        }
+        awaitRestore();
+        SessionData data = sessions.remove(sessionId);
+        if (data != null) {
+            unschedule(sessionId, data);
+            invalidated.increment();
+        }
+        store.remove(sessionId);
     }
 
+    private static void startCleaner() {
+        if (cleaner != null) {
+            return;
+        }
+        synchronized (SessionManager.class) {
+            if (cleaner != null) {
+                return;
+            }
+            ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "session-cleaner");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(SessionManager::cleanExpiredSessions,
+                    TICK, TICK, TimeUnit.MILLISECONDS);
+            long snapshotInterval = ServerConfig.getSessionSnapshotInterval();
+            executor.scheduleAtFixedRate(SessionManager::compactStore,
+                    snapshotInterval, snapshotInterval, TimeUnit.MILLISECONDS);
+            cleaner = executor;
+        }
+    }
+
+    private static void expire(String sessionId) {
+        SessionData data = sessions.remove(sessionId);
+        if (data != null) {
+            unschedule(sessionId, data);
+            store.remove(sessionId);
+            expired.increment();
+        }
+    }
+
+    private static void schedule(String sessionId, SessionData data) {
+        // Сессия попадает в корзину тика, к концу которого она истечет
+        data.bucket = (data.expiryTime + TICK - 1) / TICK;
+        buckets.computeIfAbsent(data.bucket, tick -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    private static void unschedule(String sessionId, SessionData data) {
+        Set<String> bucket = buckets.get(data.bucket);
+        if (bucket != null) {
+            bucket.remove(sessionId);
+        }
+    }
+
+    // Стоимость обхода пропорциональна числу сессий в наступивших корзинах. Активные сессии
+    // переносятся в корзину по новому времени истечения - не чаще раза за SESSION_TIMEOUT
     private static void cleanExpiredSessions() {
-        sessions.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        long now = System.currentTimeMillis();
+        long currentTick = now / TICK;
+
+        Map.Entry<Long, Set<String>> due;
+        while ((due = buckets.firstEntry()) != null && due.getKey() <= currentTick) {
+            buckets.remove(due.getKey());
+            for (String sessionId : due.getValue()) {
+                SessionData data = sessions.get(sessionId);
+                if (data == null) {
+                    continue;
+                }
+                if (data.expiryTime <= now) {
+                    if (sessions.remove(sessionId, data)) {
+                        store.remove(sessionId);
+                        expired.increment();
+                    }
+                } else {
+                    schedule(sessionId, data);
+                    rescheduled.increment();
+                }
+            }
+        }
+
+        // Записи отзыва нужны, только пока отозванные токены еще не истекли сами
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + SESSION_TIMEOUT <= now);
+        revocationChecks.values().removeIf(check -> now - check.checkedAt >= REVOCATION_REFRESH);
+
+        double minutes = Math.max(now - lastSweepAt, 1) / 60_000.0;
+        long createdTotal = created.sum();
+        long expiredTotal = expired.sum();
+        createdPerMinute = (createdTotal - createdAtLastSweep) / minutes;
+        expiredPerMinute = (expiredTotal - expiredAtLastSweep) / minutes;
+        createdAtLastSweep = createdTotal;
+        expiredAtLastSweep = expiredTotal;
+        lastSweepAt = now;
+    }
+
+    // Пока восстановление не закончено, снимок по памяти потерял бы еще не прочитанные сессии
+    private static void compactStore() {
+        if (!restoring.isDone()) {
+            return;
+        }
+        store.compact(sessions.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().toStored()))
+                .iterator());
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", TOKEN_MODE ? "token" : "server");
+        stats.put("store", store.name());
+        stats.put("restoring", !restoring.isDone());
+        stats.put("restored", restored.sum());
+        stats.put("loadedFromStore", loaded.sum());
+        stats.put("active", sessions.size());
+        stats.put("buckets", buckets.size());
+        stats.put("created", created.sum());
+        stats.put("expired", expired.sum());
+        stats.put("invalidated", invalidated.sum());
+        stats.put("rescheduled", rescheduled.sum());
+        stats.put("touches", touches.sum());
+        stats.put("revokedTokens", revokedTokens.size());
+        stats.put("revokedUsers", revokedUsers.size());
+        stats.put("sharedRevocation", SHARED_REVOCATION);
+        stats.put("revocationLookups", revocationLookups.sum());
+        stats.put("createdPerMinute", Math.round(createdPerMinute * 10) / 10.0);
+        stats.put("expiredPerMinute", Math.round(expiredPerMinute * 10) / 10.0);
+        return stats;
     }
 
     public static void shutdown() {
-        cleaner.shutdown();
+        ScheduledExecutorService executor = cleaner;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        compactStore();
+        store.close();
     }
-}
\ No newline at end of file
+}
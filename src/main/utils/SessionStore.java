@@ -0,0 +1,84 @@
+package main.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+// Хранилище, в которое SessionManager дублирует изменения сессий, чтобы они переживали перезапуск.
+// Горячий путь по-прежнему идет через карту в памяти SessionManager
+public interface SessionStore {
+
+    final class StoredSession {
+        private final int userId;
+        private final String role;
+        private final long expiryTime;
+
+        public StoredSession(int userId, String role, long expiryTime) {
+            this.userId = userId;
+            this.role = role;
+            this.expiryTime = expiryTime;
+        }
+
+        public int getUserId() { return userId; }
+        public String getRole() { return role; }
+        public long getExpiryTime() { return expiryTime; }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeInt(userId);
+            out.writeUTF(role);
+            out.writeLong(expiryTime);
+        }
+
+        static StoredSession readFrom(DataInput in) throws IOException {
+            return new StoredSession(in.readInt(), in.readUTF(), in.readLong());
+        }
+    }
+
+    String name();
+
+    // Фоновое восстановление после перезапуска: сессии отдаются в sink по мере чтения
+    CompletableFuture<Void> restore(BiConsumer<String, StoredSession> sink);
+
+    // Точечное чтение для хранилищ без полного восстановления; null - сессии нет
+    StoredSession load(String sessionId);
+
+    void save(String sessionId, StoredSession session);
+
+    void remove(String sessionId);
+
+    // Периодическое сжатие: хранилище может переписать состояние целиком по живым сессиям
+    void compact(Iterator<Map.Entry<String, StoredSession>> live);
+
+    void close();
+
+    // Отзыв токенов, видимый всем узлам: ключ - подпись токена или пользователь, значение - момент отзыва.
+    // Хранилища одного узла его не ведут - там достаточно списка в памяти SessionManager
+    default boolean sharesRevocations() {
+        return false;
+    }
+
+    default void revoke(String key, long revokedAt, long ttlMillis) {
+    }
+
+    // null - отзыва нет
+    default Long revokedAt(String key) {
+        return null;
+    }
+
+    static SessionStore create(String type) {
+        switch (type.toLowerCase()) {
+            case "file":
+                return new FileSessionStore(main.config.ServerConfig.getSessionStoreDirectory());
+            case "kv":
+                return new KeyValueSessionStore(new LocalKeyValueClient());
+            case "memory":
+                return new MemorySessionStore();
+            default:
+                throw new IllegalArgumentException("Unknown session store: " + type);
+        }
+    }
+}
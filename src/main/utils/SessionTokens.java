@@ -0,0 +1,114 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// Подписанные токены сессии: <данные>.<HMAC-SHA256>, оба в base64url.
+// Любой узел с тем же session.token.secret проверяет токен без общего состояния
+public class SessionTokens {
+    private static final byte VERSION = 1;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final byte[] secret = loadSecret();
+    private static final ThreadLocal<Mac> mac = ThreadLocal.withInitial(SessionTokens::newMac);
+
+    public static final class Token {
+        private final int userId;
+        private final String role;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final String signature;
+
+        Token(int userId, String role, long issuedAt, long expiresAt, String signature) {
+            this.userId = userId;
+            this.role = role;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.signature = signature;
+        }
+
+        public int getUserId() { return userId; }
+        public String getRole() { return role; }
+        public long getIssuedAt() { return issuedAt; }
+        public long getExpiresAt() { return expiresAt; }
+        public String getSignature() { return signature; }
+    }
+
+    public static String issue(int userId, String role, long lifetimeMillis) {
+        long now = System.currentTimeMillis();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(userId);
+            out.writeUTF(role);
+            out.writeLong(now);
+            out.writeLong(now + lifetimeMillis);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        String payload = ENCODER.encodeToString(bytes.toByteArray());
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    // null - подпись не сходится, формат не наш или срок истек
+    public static Token verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        String signature = token.substring(dot + 1);
+
+        try {
+            if (!MessageDigest.isEqual(sign(payload), DECODER.decode(signature))) {
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(DECODER.decode(payload)));
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            Token parsed = new Token(in.readInt(), in.readUTF(), in.readLong(), in.readLong(), signature);
+            return parsed.expiresAt > System.currentTimeMillis() ? parsed : null;
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private static byte[] sign(String payload) {
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance("HmacSHA256");
+            instance.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] loadSecret() {
+        String configured = ServerConfig.getSessionTokenSecret();
+        if (configured != null && !configured.isEmpty()) {
+            return configured.getBytes(StandardCharsets.UTF_8);
+        }
+        System.out.println("⚠️ session.token.secret не задан: токены не переживут перезапуск и не подойдут другим узлам");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+}
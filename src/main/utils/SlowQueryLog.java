@@ -0,0 +1,72 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SlowQueryLog {
+    private static final Object lock = new Object();
+    private static final long thresholdNanos = ServerConfig.getSlowQueryThresholdMillis() * 1_000_000L;
+    private static final Path logFile = Paths.get(ServerConfig.getSlowQueryLogFile());
+    private static final long maxSize = ServerConfig.getLogMaxSize();
+    private static final int maxFiles = ServerConfig.getLogMaxFiles();
+
+    public static boolean isSlow(long nanos) {
+        return thresholdNanos > 0 && nanos >= thresholdNanos;
+    }
+
+    // Значения параметров в лог не попадают - только их типы
+    public static void log(String sql, List<String> paramTypes, long nanos, boolean failed) {
+        String line = String.format("%s\t%.1fms\t%s\t%s\tparams=%s%n",
+                LocalDateTime.now(),
+                nanos / 1_000_000.0,
+                failed ? "ERROR" : "OK",
+                QueryStats.normalize(sql),
+                paramTypes);
+
+        synchronized (lock) {
+            try {
+                Path parent = logFile.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                rotateIfNeeded();
+                Files.write(logFile, line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("⚠️ Не удалось записать медленный запрос: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void rotateIfNeeded() throws IOException {
+        if (!Files.exists(logFile) || Files.size(logFile) < maxSize) {
+            return;
+        }
+
+        // slow-queries.log -> .1 -> .2 ... самый старый удаляется
+        Files.deleteIfExists(rotated(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(logFile, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(logFile);
+        }
+    }
+
+    private static Path rotated(int index) {
+        return Paths.get(logFile + "." + index);
+    }
+}
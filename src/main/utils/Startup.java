@@ -0,0 +1,169 @@
+package main.utils;
+
+import main.config.ServerConfig;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Запуск по этапам. Порт слушается сразу, а этапы, которым нужна БД, выполняются в фоне -
+// независимые параллельно, зависимые после своих предшественников. Готовность наступает,
+// когда выполнены все обязательные этапы; фоновые (прогрев кэшей) ее не задерживают.
+// Упавший обязательный этап повторяется через server.startup.retryMs, пока не выполнится
+public class Startup {
+    private static final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private static final ScheduledThreadPoolExecutor executor = createExecutor();
+    private static final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private static volatile long startedAt = System.nanoTime();
+    private static volatile long readyAfterMillis = -1;
+
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private static final class Stage {
+        final String name;
+        final boolean required;
+        final Task task;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final AtomicInteger attempts = new AtomicInteger();
+        volatile String state = "pending";
+        volatile long durationMillis = -1;
+        volatile String lastError;
+
+        Stage(String name, boolean required, Task task) {
+            this.name = name;
+            this.required = required;
+            this.task = task;
+        }
+    }
+
+    // Отсчет времени до готовности; вызывается первым делом в main
+    public static void begin() {
+        startedAt = System.nanoTime();
+    }
+
+    // Обязательный этап: без него сервер не готов принимать API-запросы
+    public static CompletableFuture<Void> stage(String name, Task task, CompletableFuture<?>... after) {
+        return register(new Stage(name, true, task), after);
+    }
+
+    // Фоновый этап: выполняется один раз, ошибка только записывается
+    public static CompletableFuture<Void> background(String name, Task task, CompletableFuture<?>... after) {
+        return register(new Stage(name, false, task), after);
+    }
+
+    // Все обязательные этапы зарегистрированы: готовность наступит после их выполнения
+    public static void finish() {
+        CompletableFuture<?>[] required = stages.stream()
+                .filter(stage -> stage.required)
+                .map(stage -> stage.done)
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(required).thenRun(() -> {
+            readyAfterMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            ready.complete(null);
+            HealthMonitor.refresh();
+            System.out.println("✅ Сервер готов принимать запросы через " + readyAfterMillis + " мс после запуска");
+        });
+    }
+
+    public static boolean isReady() {
+        return ready.isDone();
+    }
+
+    public static boolean isDone(String name) {
+        for (Stage stage : stages) {
+            if (stage.name.equals(name)) {
+                return stage.done.isDone() && !stage.done.isCompletedExceptionally();
+            }
+        }
+        return false;
+    }
+
+    // Для кода, которому нужна готовая схема (например, нагрузочный стенд); false - не дождались
+    public static boolean awaitReady(long timeoutMillis) {
+        try {
+            ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static CompletableFuture<Void> register(Stage stage, CompletableFuture<?>... after) {
+        stages.add(stage);
+        CompletableFuture.allOf(after).whenComplete((result, error) -> {
+            if (error != null) {
+                stage.state = "skipped";
+                stage.done.completeExceptionally(error);
+            } else {
+                executor.execute(() -> run(stage));
+            }
+        });
+        return stage.done;
+    }
+
+    private static void run(Stage stage) {
+        stage.state = "running";
+        stage.attempts.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            stage.task.run();
+            stage.durationMillis = (System.nanoTime() - start) / 1_000_000;
+            stage.state = "done";
+            stage.done.complete(null);
+        } catch (Exception e) {
+            stage.durationMillis = (System.nanoTime() - start) / 1_000_000;
+            stage.lastError = e.getMessage();
+            System.err.println("❌ Этап запуска " + stage.name + " завершился ошибкой: " + e.getMessage());
+            if (stage.required) {
+                stage.state = "retrying";
+                executor.schedule(() -> run(stage), ServerConfig.getStartupRetryMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                stage.state = "failed";
+                stage.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+                Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "startup-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // После запуска потоки этапов не держатся
+        pool.setKeepAliveTime(30, TimeUnit.SECONDS);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", isReady());
+        stats.put("readyAfterMs", readyAfterMillis);
+        Map<String, Object> byStage = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("state", stage.state);
+            info.put("required", stage.required);
+            info.put("attempts", stage.attempts.get());
+            info.put("durationMs", stage.durationMillis);
+            if (stage.lastError != null) {
+                info.put("lastError", stage.lastError);
+            }
+            byStage.put(stage.name, info);
+        }
+        stats.put("stages", byStage);
+        return stats;
+    }
+}
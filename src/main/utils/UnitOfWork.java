@@ -0,0 +1,172 @@
+package main.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Единица работы: все вызовы DAO внутри run() идут через одно соединение и фиксируются одним commit.
+// DAO ничего не знают о ней - DatabaseConnection сам отдает соединение текущей единицы работы.
+// Вложенный run() присоединяется к внешнему
+public class UnitOfWork {
+    private static final ThreadLocal<UnitOfWork> current = new ThreadLocal<>();
+
+    private static final LongAdder committed = new LongAdder();
+    private static final LongAdder rolledBack = new LongAdder();
+    private static final LongAdder reads = new LongAdder();
+
+    private final Connection connection;
+    private final Connection shared;
+    private final boolean write;
+    private final boolean primary;
+    private List<Runnable> completion;
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws SQLException;
+    }
+
+    private UnitOfWork(Connection connection, boolean write, boolean primary) {
+        this.connection = connection;
+        this.write = write;
+        this.primary = primary;
+        this.shared = unclosable(connection);
+    }
+
+    // Транзакция на основной БД: commit при успехе, rollback при любом исключении
+    public static <T> T run(Work<T> work) throws SQLException {
+        UnitOfWork active = current.get();
+        if (active != null && active.write) {
+            return work.execute();
+        }
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            UnitOfWork unit = new UnitOfWork(connection, true, true);
+            current.set(unit);
+            try {
+                T result = work.execute();
+                connection.commit();
+                committed.increment();
+                return result;
+            } catch (SQLException | RuntimeException | Error e) {
+                rollback(connection, e);
+                throw e;
+            } finally {
+                // Внутри чтения снова становится текущим читающее соединение
+                current.set(active);
+                if (active == null) {
+                    current.remove();
+                }
+                unit.complete();
+            }
+        }
+    }
+
+    // Несколько чтений через одно соединение без транзакции (реплика, если она есть)
+    public static <T> T read(Work<T> work) throws SQLException {
+        if (current.get() != null) {
+            return work.execute();
+        }
+
+        ConnectionPool replica = ReplicaRouter.choose();
+        try (Connection connection = DatabaseConnection.openRead(replica)) {
+            current.set(new UnitOfWork(connection, false, replica == null));
+            reads.increment();
+            try {
+                return work.execute();
+            } finally {
+                current.remove();
+            }
+        }
+    }
+
+    // Действие после commit или rollback текущей транзакции (например, сброс кэша);
+    // вне транзакции выполняется сразу
+    public static void afterCompletion(Runnable action) {
+        UnitOfWork active = current.get();
+        if (active == null || !active.write) {
+            action.run();
+            return;
+        }
+        if (active.completion == null) {
+            active.completion = new ArrayList<>(2);
+        }
+        active.completion.add(action);
+    }
+
+    // Данные, прочитанные внутри транзакции, могут не дожить до commit - кэшировать их нельзя
+    public static boolean inTransaction() {
+        UnitOfWork active = current.get();
+        return active != null && active.write;
+    }
+
+    private void complete() {
+        if (completion != null) {
+            for (Runnable action : completion) {
+                action.run();
+            }
+        }
+    }
+
+    // Соединение текущей единицы работы или null. Запись внутри read() сюда не попадает:
+    // читающее соединение может вести на реплику
+    static Connection joined(boolean forWrite) {
+        UnitOfWork active = current.get();
+        if (active == null || forWrite && !active.write) {
+            return null;
+        }
+        return active.shared;
+    }
+
+    // Соединение текущей единицы работы, если оно ведет на основную БД, иначе null
+    static Connection joinedPrimary() {
+        UnitOfWork active = current.get();
+        return active != null && active.primary ? active.shared : null;
+    }
+
+    private static void rollback(Connection connection, Throwable cause) {
+        rolledBack.increment();
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // Закрывать соединение единицы работы может только она сама
+    private static Connection unclosable(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "setAutoCommit":
+                        case "commit":
+                        case "rollback":
+                            throw new SQLException("Transaction is managed by the unit of work");
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("committed", committed.sum());
+        stats.put("rolledBack", rolledBack.sum());
+        stats.put("reads", reads.sum());
+        return stats;
+    }
+}